@@ -0,0 +1,26 @@
+package io.github.dealmicroservice.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Контейнер подписки на инвалидации локальных кэшей и снимка справочников.
+ * Недоступность Redis при старте не мешает запуску сервиса: подписка не создается,
+ * а записи локальных кэшей устаревают не дольше dealmicroservice.deals.cache.local.ttl,
+ * снимок справочников - не дольше dealmicroservice.reference-data.refresh-interval.
+ */
+class CacheInvalidationListenerContainer extends RedisMessageListenerContainer {
+
+    private final Logger log = LogManager.getLogger(CacheInvalidationListenerContainer.class);
+
+    @Override
+    public void start() {
+        try {
+            super.start();
+        } catch (RuntimeException e) {
+            log.warn("Failed to subscribe to local cache invalidations, local caches will expire by TTL only", e);
+        }
+    }
+
+}
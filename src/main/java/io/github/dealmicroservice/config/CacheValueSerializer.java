@@ -0,0 +1,147 @@
+package io.github.dealmicroservice.config;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.github.dealmicroservice.model.dto.DealDTO;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Сериализатор значений кэшей Redis с выбираемым форматом и сжатием.
+ * Формат записи: json (текстовый JSON с типами классов, как у GenericJackson2JsonRedisSerializer)
+ * или smile (бинарный JSON Jackson Smile с той же моделью типов). Значения не меньше
+ * compressionThreshold байт дополнительно сжимаются в кадр LZ4.
+ * Чтение определяет формат и сжатие по сигнатуре данных (магическое число кадра LZ4, заголовок Smile),
+ * поэтому смена настроек не ломает уже закэшированные записи.
+ */
+public class CacheValueSerializer implements RedisSerializer<Object> {
+
+    public static final String CODEC_JSON = "json";
+    public static final String CODEC_SMILE = "smile";
+
+    private static final byte[] SMILE_HEADER = {':', ')', '\n'};
+    private static final byte[] LZ4_FRAME_MAGIC = {0x04, 0x22, 0x4D, 0x18};
+
+    private static final ObjectMapper JSON = objectMapper(new ObjectMapper());
+    private static final ObjectMapper SMILE = objectMapper(new ObjectMapper(new SmileFactory()));
+
+    private final ObjectMapper writer;
+    private final int compressionThreshold;
+
+    /**
+     * @param codec                формат записи: json или smile
+     * @param compressionThreshold минимальный размер значения в байтах для сжатия LZ4, 0 и меньше - без сжатия
+     */
+    public CacheValueSerializer(String codec, int compressionThreshold) {
+        this.writer = switch (codec.toLowerCase(Locale.ROOT)) {
+            case CODEC_JSON -> JSON;
+            case CODEC_SMILE -> SMILE;
+            default -> throw new IllegalArgumentException("Unknown cache codec: " + codec);
+        };
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+
+        if (value == null) {
+            return new byte[0];
+        }
+
+        byte[] bytes;
+        try {
+            bytes = writer.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write cache value: " + e.getMessage(), e);
+        }
+
+        if (compressionThreshold <= 0 || bytes.length < compressionThreshold) {
+            return bytes;
+        }
+
+        return compress(bytes);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        byte[] payload = startsWith(bytes, LZ4_FRAME_MAGIC) ? decompress(bytes) : bytes;
+
+        try {
+            return (startsWith(payload, SMILE_HEADER) ? SMILE : JSON).readValue(payload, Object.class);
+        } catch (IOException e) {
+            throw new SerializationException("Could not read cache value: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Настраивает ObjectMapper с той же моделью типов, что и GenericJackson2JsonRedisSerializer:
+     * тип класса записывается в свойство @class для всех значений, NullValue кэша сериализуется отдельным модулем.
+     * ETag сделки, скрытый в ответах API, в кэше сохраняется.
+     * Дополнительно подключается java.time для дат DealDTO.
+     * Значения читаются напрямую через ObjectMapper: тип берется из @class при разборе,
+     * без предварительного чтения дерева, которое выполняет GenericJackson2JsonRedisSerializer.
+     */
+    @SuppressWarnings("deprecation")
+    private static ObjectMapper objectMapper(ObjectMapper objectMapper) {
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.activateDefaultTyping(objectMapper.getPolymorphicTypeValidator(),
+                ObjectMapper.DefaultTyping.EVERYTHING, JsonTypeInfo.As.PROPERTY);
+        GenericJackson2JsonRedisSerializer.registerNullValueSerializer(objectMapper, null);
+        objectMapper.addMixIn(DealDTO.class, CachedDealDTO.class);
+        return objectMapper;
+    }
+
+    /**
+     * В кэше DealDTO хранится вместе с ETag, который не входит в ответы API
+     */
+    private abstract static class CachedDealDTO {
+
+        @JsonIgnore(false)
+        @JsonProperty
+        private String etag;
+
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        return bytes.length >= prefix.length && Arrays.equals(bytes, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    private static byte[] compress(byte[] bytes) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 2);
+        try (OutputStream lz4 = new LZ4FrameOutputStream(buffer, LZ4FrameOutputStream.BLOCKSIZE.SIZE_64KB)) {
+            lz4.write(bytes);
+        } catch (IOException e) {
+            throw new SerializationException("Could not compress cache value", e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] bytes) {
+        try (InputStream lz4 = new LZ4FrameInputStream(new ByteArrayInputStream(bytes))) {
+            return lz4.readAllBytes();
+        } catch (IOException e) {
+            throw new SerializationException("Could not decompress cache value", e);
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+package io.github.dealmicroservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Исполнитель на виртуальных потоках для параллельной догрузки данных сделок.
+     * Каждая задача занимает собственное соединение с БД, пока вызывающий поток держит свое,
+     * поэтому число одновременных задач ограничено четвертью меньшего из пулов соединений:
+     * даже при полной загрузке задачи и ожидающие их потоки занимают не больше половины пула.
+     * Очереди нет - задача сверх лимита отклоняется RejectedExecutionException, и вызывающий
+     * выполняет ее сам. Контекст безопасности передается в задачу вместе с ней.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService dealHydrationExecutor(
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int primaryPoolSize,
+            @Value("${dealmicroservice.datasource.replica.maximum-pool-size:10}") int replicaPoolSize) {
+
+        int maximumTasks = Math.max(1, Math.min(primaryPoolSize, replicaPoolSize) / 4);
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(0, maximumTasks, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), Thread.ofVirtual().name("deal-hydration-", 0).factory());
+
+        return new DelegatingSecurityContextExecutorService(executor);
+    }
+
+    /**
+     * Однопоточный исполнитель фоновых пересчетов модели чтения поиска (например, после переименования
+     * типа сделки): пересчеты выполняются по очереди и занимают не больше одного соединения с БД.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService dealSearchViewExecutor() {
+        return Executors.newSingleThreadExecutor();
+    }
+
+}
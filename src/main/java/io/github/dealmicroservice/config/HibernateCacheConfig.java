@@ -0,0 +1,68 @@
+package io.github.dealmicroservice.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Кэш второго уровня Hibernate (JCache на Caffeine) для почти неизменяемых справочников:
+ * типов и статусов сделок, валют и ролей контрагентов.
+ * Связи сделок, сумм и ролей со справочниками ленивые и не подтягиваются соединениями,
+ * поэтому при обращении к ним справочная сущность берется из этого кэша, а SQL выполняется только при промахе.
+ * Регионы локальны для экземпляра; время жизни записей dealmicroservice.jpa.reference-cache.ttl
+ * ограничивает устаревание названий, измененных на другом экземпляре.
+ * Каждый контекст Spring получает собственный менеджер кэшей, чтобы регионы не пересекались.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    public static final String DEAL_TYPE_REGION = "deal_type";
+
+    public static final String DEAL_STATUS_REGION = "deal_status";
+
+    public static final String CURRENCY_REGION = "currency";
+
+    public static final String CONTRACTOR_ROLE_REGION = "contractor_role";
+
+    private static final List<String> REGIONS = List.of(DEAL_TYPE_REGION, DEAL_STATUS_REGION, CURRENCY_REGION, CONTRACTOR_ROLE_REGION);
+
+    @Value("${dealmicroservice.jpa.reference-cache.ttl:PT10M}")
+    private Duration referenceCacheTtl;
+
+    @Value("${dealmicroservice.jpa.reference-cache.maximum-size:1000}")
+    private long referenceCacheMaximumSize;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("dealmicroservice-hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(referenceCacheMaximumSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(referenceCacheTtl.toNanos()));
+        configuration.setStoreByValue(false);
+
+        REGIONS.forEach(region -> cacheManager.createCache(region, configuration));
+
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+}
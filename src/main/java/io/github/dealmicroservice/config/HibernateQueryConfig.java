@@ -0,0 +1,24 @@
+package io.github.dealmicroservice.config;
+
+import io.github.dealmicroservice.repository.DealSearchExplainInspector;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Настройки выполнения запросов Hibernate, от которых зависит поиск сделок
+ */
+@Configuration
+public class HibernateQueryConfig {
+
+    /**
+     * Оценка количества найденных сделок (count_mode=estimated) выполняется через EXPLAIN
+     * SQL, сгенерированного Hibernate для скомпилированного запроса
+     */
+    @Bean
+    public HibernatePropertiesCustomizer dealSearchExplainInspectorCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new DealSearchExplainInspector());
+    }
+
+}
@@ -1,5 +1,10 @@
 package io.github.dealmicroservice.config;
 
+import io.github.dealmicroservice.service.DealSearchCacheService;
+import io.github.dealmicroservice.service.ReferenceDataSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -7,40 +12,101 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.Set;
 
 @Configuration
 @EnableCaching
 public class RedisConfig {
 
+    @Value("${dealmicroservice.search.cache.ttl:PT1M}")
+    private Duration searchCacheTtl;
+
+    @Value("${dealmicroservice.search.cache.count-ttl:PT30S}")
+    private Duration searchCountCacheTtl;
+
+    @Value("${dealmicroservice.cache.codec.deals:json}")
+    private String dealsCodec;
+
+    @Value("${dealmicroservice.cache.codec.search:json}")
+    private String searchCodec;
+
+    @Value("${dealmicroservice.cache.codec.metadata:json}")
+    private String metadataCodec;
+
+    @Value("${dealmicroservice.cache.compression-threshold:0}")
+    private int compressionThreshold;
+
+    @Value("${dealmicroservice.deals.cache.local.enabled:true}")
+    private boolean localCacheEnabled;
+
+    @Value("${dealmicroservice.deals.cache.local.maximum-size:10000}")
+    private long localCacheMaximumSize;
+
+    @Value("${dealmicroservice.deals.cache.local.ttl:PT10S}")
+    private Duration localCacheTtl;
+
+    @Value("${dealmicroservice.deals.cache.load-lock-ttl:PT0S}")
+    private Duration loadLockTtl;
+
+    /**
+     * Основной менеджер кэшей: кэш сделок "deals" дополнительно держится в локальном кэше экземпляра
+     * перед Redis и загружается при промахе одним запросом на ключ, остальные кэши - только в Redis.
+     * При выключенном локальном кэше его размер нулевой, а объединение загрузок сохраняется
+     */
     @Bean
     @Primary
-    public RedisCacheManager dealsCacheManager(RedisConnectionFactory connectionFactory) {
-        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(30))
-                .serializeKeysWith(RedisSerializationContext.SerializationPair
-                                .fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair
-                        .fromSerializer(new GenericJackson2JsonRedisSerializer()));
+    public TwoLevelCacheManager dealsCacheManager(@Qualifier("dealsRedisCacheManager") RedisCacheManager dealsRedisCacheManager,
+                                                  StringRedisTemplate redisTemplate,
+                                                  MeterRegistry meterRegistry) {
+        return new TwoLevelCacheManager(
+                dealsRedisCacheManager,
+                Set.of("deals"),
+                localCacheEnabled ? localCacheMaximumSize : 0,
+                localCacheTtl,
+                redisTemplate,
+                meterRegistry,
+                loadLockTtl
+        );
+    }
+
+    /**
+     * Подписка на инвалидации локальных кэшей и снимка справочников, опубликованные другими экземплярами сервиса
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            TwoLevelCacheManager dealsCacheManager,
+                                                                            ReferenceDataSnapshot referenceDataSnapshot) {
+        RedisMessageListenerContainer container = new CacheInvalidationListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(dealsCacheManager, new ChannelTopic(TwoLevelCacheManager.INVALIDATION_CHANNEL));
+        container.addMessageListener(referenceDataSnapshot, new ChannelTopic(ReferenceDataSnapshot.REFRESH_CHANNEL));
+        return container;
+    }
+
+    @Bean
+    public RedisCacheManager dealsRedisCacheManager(RedisConnectionFactory connectionFactory) {
+        RedisCacheConfiguration config = cacheConfiguration(Duration.ofMinutes(30), dealsCodec);
+        RedisCacheConfiguration searchConfig = cacheConfiguration(searchCacheTtl, searchCodec);
 
         return RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(config)
                 .withCacheConfiguration("deals", config)
+                .withCacheConfiguration(DealSearchCacheService.CACHE_NAME, searchConfig)
+                .withCacheConfiguration(DealSearchCacheService.COUNT_CACHE_NAME, searchConfig.entryTtl(searchCountCacheTtl))
+                .withCacheConfiguration(DealSearchCacheService.FACETS_CACHE_NAME, searchConfig)
                 .build();
     }
 
     @Bean
     public RedisCacheManager dealMetadataCacheManager(RedisConnectionFactory connectionFactory) {
-        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofHours(1))
-                .serializeKeysWith(RedisSerializationContext.SerializationPair
-                        .fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair
-                        .fromSerializer(new GenericJackson2JsonRedisSerializer()));
+        RedisCacheConfiguration config = cacheConfiguration(Duration.ofHours(1), metadataCodec);
 
         return RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(config)
@@ -48,4 +114,13 @@ public class RedisConfig {
                 .build();
     }
 
+    private RedisCacheConfiguration cacheConfiguration(Duration ttl, String codec) {
+        return RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(ttl)
+                .serializeKeysWith(RedisSerializationContext.SerializationPair
+                        .fromSerializer(new StringRedisSerializer()))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair
+                        .fromSerializer(new CacheValueSerializer(codec, compressionThreshold)));
+    }
+
 }
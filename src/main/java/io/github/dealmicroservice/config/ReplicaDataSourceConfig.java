@@ -0,0 +1,75 @@
+package io.github.dealmicroservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.dealmicroservice.service.ReadYourWritesService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Маршрутизация чтения на реплику PostgreSQL.
+ * Включается заданием dealmicroservice.datasource.replica.url, без него используется
+ * стандартный DataSource из spring.datasource.*.
+ */
+@Configuration
+@ConditionalOnProperty(name = "dealmicroservice.datasource.replica.url")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(
+            DataSourceProperties properties,
+            @Value("${dealmicroservice.datasource.replica.url}") String url,
+            @Value("${dealmicroservice.datasource.replica.username:${spring.datasource.username}}") String username,
+            @Value("${dealmicroservice.datasource.replica.password:${spring.datasource.password}}") String password,
+            @Value("${dealmicroservice.datasource.replica.maximum-pool-size:10}") int maximumPoolSize) {
+
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    /**
+     * DataSource приложения: read-only транзакции идут на реплику, остальные и закрепленные
+     * за основной БД после записи вызывающие - на основную БД
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReadYourWritesService readYourWritesService) {
+
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(readYourWritesService);
+        routingDataSource.setTargetDataSources(Map.of(
+                ReplicaRoutingDataSource.PRIMARY, primaryDataSource,
+                ReplicaRoutingDataSource.REPLICA, replicaDataSource
+        ));
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+}
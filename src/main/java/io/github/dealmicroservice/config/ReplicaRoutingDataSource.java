@@ -0,0 +1,31 @@
+package io.github.dealmicroservice.config;
+
+import io.github.dealmicroservice.service.ReadYourWritesService;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Направляет соединения read-only транзакций на реплику, остальные - на основную БД.
+ * Решение принимается при получении физического соединения, поэтому источник оборачивается
+ * в LazyConnectionDataSourceProxy: к этому моменту признак readOnly транзакции уже установлен.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private final ReadYourWritesService readYourWritesService;
+
+    public ReplicaRoutingDataSource(ReadYourWritesService readYourWritesService) {
+        this.readYourWritesService = readYourWritesService;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !readYourWritesService.isPinnedToPrimary()
+                ? REPLICA
+                : PRIMARY;
+    }
+
+}
@@ -0,0 +1,255 @@
+package io.github.dealmicroservice.config;
+
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Двухуровневый кэш: локальный кэш экземпляра сервиса (L1) перед общим кэшем в Redis (L2).
+ * Чтение сначала идет в L1, при промахе - в Redis, найденное значение сохраняется в L1.
+ * Запись, удаление и очистка выполняются на обоих уровнях и рассылаются остальным экземплярам
+ * через TwoLevelCacheManager, чтобы они сбросили свой L1.
+ * Ключи L1 приводятся к строке так же, как RedisCache формирует ключи L2.
+ * Загрузка при промахе (@Cacheable(sync = true)) выполняется одна на ключ в пределах экземпляра:
+ * параллельные запросы того же ключа ждут ее результат, включая любую ошибку загрузки (в том числе Error). Между экземплярами загрузку может
+ * координировать короткая блокировка в Redis: не получившие ее ждут появления значения в Redis.
+ */
+public class TwoLevelCache implements Cache {
+
+    private final Cache localCache;
+    private final Cache remoteCache;
+    private final TwoLevelCacheManager cacheManager;
+
+    private final Map<String, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+
+    TwoLevelCache(Cache localCache, Cache remoteCache, TwoLevelCacheManager cacheManager) {
+        this.localCache = localCache;
+        this.remoteCache = remoteCache;
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public String getName() {
+        return remoteCache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remoteCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+
+        ValueWrapper local = localCache.get(localKey(key));
+        if (local != null) {
+            return local;
+        }
+
+        ValueWrapper remote = remoteCache.get(key);
+        if (remote != null) {
+            localCache.put(localKey(key), remote.get());
+        }
+
+        return remote;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+
+        String localKey = localKey(key);
+        ValueWrapper local = localCache.get(localKey);
+        if (local != null) {
+            return (T) local.get();
+        }
+
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loads.putIfAbsent(localKey, load);
+        if (inFlight != null) {
+            cacheManager.recordCoalesced(getName());
+            return (T) await(inFlight);
+        }
+
+        try {
+            Object value = load(key, localKey, valueLoader);
+            load.complete(value);
+            return (T) value;
+        } catch (Throwable e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(localKey, load);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remoteCache.put(key, value);
+        localCache.put(localKey(key), value);
+        cacheManager.publishEvict(getName(), localKey(key));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+
+        ValueWrapper existing = remoteCache.putIfAbsent(key, value);
+        localCache.put(localKey(key), existing != null ? existing.get() : value);
+
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remoteCache.evict(key);
+        evictLocal(localKey(key));
+        cacheManager.publishEvict(getName(), localKey(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+
+        boolean evicted = remoteCache.evictIfPresent(key);
+        evictLocal(localKey(key));
+        cacheManager.publishEvict(getName(), localKey(key));
+
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        remoteCache.clear();
+        clearLocal();
+        cacheManager.publishClear(getName());
+    }
+
+    @Override
+    public boolean invalidate() {
+
+        boolean invalidated = remoteCache.invalidate();
+        clearLocal();
+        cacheManager.publishClear(getName());
+
+        return invalidated;
+    }
+
+    void putLocal(String key, Object value) {
+        localCache.put(key, value);
+    }
+
+    void evictLocal(String key) {
+        localCache.evict(key);
+    }
+
+    void clearLocal() {
+        localCache.clear();
+    }
+
+    /**
+     * Загружает значение при промахе L1: из Redis, иначе вызовом valueLoader с записью на оба уровня.
+     * При включенной блокировке загрузку выполняет только получивший ее экземпляр
+     */
+    private Object load(Object key, String localKey, Callable<?> valueLoader) {
+
+        ValueWrapper cached = remoteCache.get(key);
+
+        boolean locked = false;
+        if (cached == null && cacheManager.isLockEnabled()) {
+            locked = cacheManager.tryLock(getName(), localKey);
+            if (!locked) {
+                cached = awaitRemote(key, localKey);
+            }
+        }
+
+        try {
+            Object value;
+            if (cached != null) {
+                value = cached.get();
+            } else {
+                value = call(key, valueLoader);
+                remoteCache.put(key, value);
+            }
+
+            localCache.put(localKey, value);
+            return value;
+        } finally {
+            if (locked) {
+                cacheManager.unlock(getName(), localKey);
+            }
+        }
+    }
+
+    /**
+     * Ждет, пока другой экземпляр загрузит значение в Redis; возвращает null, если блокировка
+     * снята или истекла без значения (например, загрузка завершилась ошибкой)
+     */
+    private ValueWrapper awaitRemote(Object key, String localKey) {
+
+        cacheManager.recordLockWait(getName());
+
+        Duration pollInterval = cacheManager.getLockPollInterval();
+        long deadline = System.nanoTime() + cacheManager.getLockTtl().toNanos();
+
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(pollInterval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+
+            ValueWrapper cached = remoteCache.get(key);
+            if (cached != null || !cacheManager.isLocked(getName(), localKey)) {
+                return cached;
+            }
+        }
+
+        return null;
+    }
+
+    private Object call(Object key, Callable<?> valueLoader) {
+        try {
+            return valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    private Object await(CompletableFuture<Object> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+}
@@ -0,0 +1,240 @@
+package io.github.dealmicroservice.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Менеджер кэшей, добавляющий локальный кэш Caffeine перед кэшами Redis для заданных имен.
+ * Остальные кэши отдаются из Redis без изменений.
+ * Удаления и очистки двухуровневых кэшей публикуются в канал Redis INVALIDATION_CHANNEL,
+ * а сообщения других экземпляров сервиса сбрасывают соответствующие записи локального кэша.
+ * Локальный кэш ограничен по количеству записей и времени жизни, поэтому потерянное
+ * сообщение об инвалидации дает устаревшие данные не дольше его TTL.
+ * При ненулевом lockTtl загрузку значения при промахе координирует блокировка в Redis
+ * (SET NX с TTL), чтобы истекшую горячую запись загружал один экземпляр.
+ * Ожидания чужой загрузки публикуются в метриках deal.cache.coalesced (внутри экземпляра)
+ * и deal.cache.lock.waits (между экземплярами) с тегом cache.
+ */
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "dealmicroservice:cache:invalidation";
+
+    private static final String SEPARATOR = "\n";
+
+    private static final Duration LOCK_POLL_INTERVAL = Duration.ofMillis(20);
+
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final Logger log = LogManager.getLogger(TwoLevelCacheManager.class);
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    private final CacheManager remoteCacheManager;
+    private final Set<String> localCacheNames;
+    private final long localMaximumSize;
+    private final Duration localTtl;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Duration lockTtl;
+
+    /**
+     * @param localMaximumSize максимальное количество записей локального кэша, 0 - без локального кэша
+     * @param lockTtl          время жизни блокировки загрузки в Redis, 0 - без блокировки между экземплярами
+     */
+    public TwoLevelCacheManager(CacheManager remoteCacheManager,
+                                Set<String> localCacheNames,
+                                long localMaximumSize,
+                                Duration localTtl,
+                                StringRedisTemplate redisTemplate,
+                                MeterRegistry meterRegistry,
+                                Duration lockTtl) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.localCacheNames = localCacheNames;
+        this.localMaximumSize = localMaximumSize;
+        this.localTtl = localTtl;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.lockTtl = lockTtl;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+
+        if (!localCacheNames.contains(name)) {
+            return remoteCacheManager.getCache(name);
+        }
+
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+
+    /**
+     * Сбрасывает записи локального кэша по сообщению другого экземпляра:
+     * сообщение содержит один или несколько ключей через перевод строки, пустой ключ означает очистку всего кэша
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR, 3);
+        if (parts.length < 3 || instanceId.equals(parts[0])) {
+            return;
+        }
+
+        TwoLevelCache cache = caches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+
+        if (parts[2].isEmpty()) {
+            cache.clearLocal();
+        } else {
+            for (String key : parts[2].split(SEPARATOR)) {
+                cache.evictLocal(key);
+            }
+        }
+
+        log.debug("Local cache {} invalidated by another instance, key: {}", parts[1], parts[2]);
+    }
+
+    /**
+     * Сбрасывает записи локального кэша по набору ключей и рассылает их остальным экземплярам
+     * одним сообщением. Записи в Redis удаляет вызывающая сторона
+     */
+    public void evictLocal(String cacheName, Collection<?> keys) {
+
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        List<String> localKeys = keys.stream().map(String::valueOf).toList();
+
+        TwoLevelCache cache = caches.get(cacheName);
+        if (cache != null) {
+            localKeys.forEach(cache::evictLocal);
+        }
+
+        publish(cacheName, String.join(SEPARATOR, localKeys));
+    }
+
+    /**
+     * Кладет значение в локальный кэш и рассылает остальным экземплярам сброс их локальной копии.
+     * Значение в Redis записывает вызывающая сторона
+     */
+    public void putLocal(String cacheName, Object key, Object value) {
+
+        String localKey = String.valueOf(key);
+
+        TwoLevelCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.putLocal(localKey, value);
+        }
+
+        publish(cacheName, localKey);
+    }
+
+    void publishEvict(String cacheName, String key) {
+        publish(cacheName, key);
+    }
+
+    void publishClear(String cacheName) {
+        publish(cacheName, "");
+    }
+
+    boolean isLockEnabled() {
+        return lockTtl.isPositive();
+    }
+
+    Duration getLockTtl() {
+        return lockTtl;
+    }
+
+    Duration getLockPollInterval() {
+        return LOCK_POLL_INTERVAL;
+    }
+
+    /**
+     * Берет блокировку загрузки ключа; при недоступности Redis загрузка выполняется без блокировки
+     */
+    boolean tryLock(String cacheName, String key) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey(cacheName, key), instanceId, lockTtl));
+        } catch (RuntimeException e) {
+            log.warn("Failed to acquire load lock for cache {}, key: {}", cacheName, key, e);
+            return true;
+        }
+    }
+
+    boolean isLocked(String cacheName, String key) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(lockKey(cacheName, key)));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    void unlock(String cacheName, String key) {
+        try {
+            redisTemplate.execute(UNLOCK_SCRIPT, List.of(lockKey(cacheName, key)), instanceId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to release load lock for cache {}, key: {}", cacheName, key, e);
+        }
+    }
+
+    void recordCoalesced(String cacheName) {
+        meterRegistry.counter("deal.cache.coalesced", "cache", cacheName).increment();
+    }
+
+    void recordLockWait(String cacheName) {
+        meterRegistry.counter("deal.cache.lock.waits", "cache", cacheName).increment();
+    }
+
+    private String lockKey(String cacheName, String key) {
+        return cacheName + ":lock:" + key;
+    }
+
+    private void publish(String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, instanceId + SEPARATOR + cacheName + SEPARATOR + key);
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish invalidation of local cache {}, key: {}", cacheName, key, e);
+        }
+    }
+
+    private TwoLevelCache createCache(String name) {
+
+        CaffeineCache localCache = new CaffeineCache(name, Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(localTtl)
+                .build());
+
+        return new TwoLevelCache(localCache, remoteCacheManager.getCache(name), this);
+    }
+
+}
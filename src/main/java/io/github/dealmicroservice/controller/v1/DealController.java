@@ -1,10 +1,17 @@
 package io.github.dealmicroservice.controller.v1;
 
+import io.github.dealmicroservice.model.dto.DealBatchGetDTO;
+import io.github.dealmicroservice.model.dto.DealBatchSaveDTO;
+import io.github.dealmicroservice.model.dto.DealBatchSaveResultDTO;
+import io.github.dealmicroservice.model.dto.DealCursorPageDTO;
 import io.github.dealmicroservice.model.dto.DealDTO;
+import io.github.dealmicroservice.model.dto.DealFacetsDTO;
 import io.github.dealmicroservice.model.dto.DealSaveDTO;
 import io.github.dealmicroservice.model.dto.DealSearchDTO;
+import io.github.dealmicroservice.model.dto.DealSearchPageDTO;
 import io.github.dealmicroservice.model.dto.DealStatusChangeRequest;
 import io.github.dealmicroservice.service.DealService;
+import io.github.dealmicroservice.service.ETagUtils;
 import io.github.dealmicroservice.service.ExcelService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -18,6 +25,7 @@ import jakarta.validation.Valid;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -27,8 +35,10 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -36,6 +46,8 @@ import java.util.UUID;
 @Tag(name = "Deals", description = "API для управления сделками")
 public class DealController implements DealControllerContract {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final Logger log = LogManager.getLogger(DealController.class);
 
     private final DealService dealService;
@@ -151,6 +163,81 @@ public class DealController implements DealControllerContract {
         return ResponseEntity.ok(savedDeal);
     }
 
+    @Operation(
+            summary = "Создать или обновить несколько сделок",
+            description = """
+                    Сохраняет до 1000 сделок за запрос в одной транзакции: сделка без id создается со статусом DRAFT,
+                    с id - обновляется. Сделка с неизвестным типом или id несуществующей сделки не сохраняется
+                    и возвращается со статусом FAILED и причиной ошибки, остальные сделки сохраняются.
+                    Результаты возвращаются в порядке запроса; созданным сделкам присваиваются идентификаторы.
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Результаты сохранения сделок",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = DealBatchSaveResultDTO.class),
+                            examples = @ExampleObject(
+                                    value = """
+                                        [
+                                          {
+                                            "index": 0,
+                                            "id": "123e4567-e89b-12d3-a456-426614174000",
+                                            "status": "CREATED",
+                                            "error": null
+                                          },
+                                          {
+                                            "index": 1,
+                                            "id": "7ab0ec84-7a0d-48bc-aaf5-07ac07661ef1",
+                                            "status": "FAILED",
+                                            "error": "Тип сделки UNKNOWN не найден"
+                                          }
+                                        ]
+                                    """
+                            )
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Пустой или слишком длинный список сделок"
+            )
+    })
+    @PostMapping("/batch-save")
+    public ResponseEntity<List<DealBatchSaveResultDTO>> saveDeals(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Сделки для сохранения",
+                    required = true,
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = DealBatchSaveDTO.class),
+                            examples = @ExampleObject(
+                                    value = """
+                                        {
+                                          "deals": [
+                                            {
+                                              "description": "Сделка по продаже оборудования",
+                                              "agreement_number": "AG-2023-001",
+                                              "type_id": "CREDIT"
+                                            },
+                                            {
+                                              "id": "7ab0ec84-7a0d-48bc-aaf5-07ac07661ef1",
+                                              "description": "13324556",
+                                              "type_id": "UNKNOWN"
+                                            }
+                                          ]
+                                        }
+                                    """
+                            )
+                    )
+            )
+            @Valid @RequestBody DealBatchSaveDTO request) {
+        log.info("Received request to save {} deals", request.getDeals().size());
+        List<DealBatchSaveResultDTO> results = dealService.saveDeals(request.getDeals());
+        return ResponseEntity.ok(results);
+    }
+
     @Operation(summary = "Изменить статус сделки")
     @ApiResponses(value = {
             @ApiResponse(
@@ -291,6 +378,10 @@ public class DealController implements DealControllerContract {
                             )
                     )
             ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Сделка не изменилась с версии из If-None-Match (ETag), тело ответа пустое"
+            ),
             @ApiResponse(
                     responseCode = "404",
                     description = "Сделка не найдена",
@@ -310,17 +401,76 @@ public class DealController implements DealControllerContract {
     public ResponseEntity<DealDTO> getDealById(@PathVariable UUID id) {
         log.info("Received request to get deal by id: {}", id);
         DealDTO deal = dealService.getDealById(id);
-        return ResponseEntity.ok(deal);
+        return ResponseEntity.ok()
+                .eTag(ETagUtils.of(deal.getEtag(), deal))
+                .body(deal);
     }
 
-    @Operation(summary = "Поиск сделок с пагинацией и фильтрами")
+    @Operation(
+            summary = "Получить несколько сделок по ID",
+            description = """
+                    Возвращает сделки в порядке идентификаторов запроса (не более 100 за запрос).
+                    Закэшированные сделки читаются из Redis одной командой, остальные - одним запросом к БД.
+                    Несуществующие и неактивные сделки в ответ не попадают.
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Найденные сделки",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = DealDTO.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Пустой или слишком длинный список идентификаторов"
+            )
+    })
+    @PostMapping("/batch-get")
+    public ResponseEntity<List<DealDTO>> getDealsByIds(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Идентификаторы сделок",
+                    required = true,
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = DealBatchGetDTO.class),
+                            examples = @ExampleObject(
+                                    value = """
+                                        {
+                                          "ids": [
+                                            "7ab0ec84-7a0d-48bc-aaf5-07ac07661ef1",
+                                            "123e4567-e89b-12d3-a456-426614174000"
+                                          ]
+                                        }
+                                    """
+                            )
+                    )
+            )
+            @Valid @RequestBody DealBatchGetDTO request) {
+        log.info("Received request to get {} deals by ids", request.getIds().size());
+        List<DealDTO> deals = dealService.getDealsByIds(request.getIds());
+        return ResponseEntity.ok(deals);
+    }
+
+    @Operation(
+            summary = "Поиск сделок с пагинацией и фильтрами",
+            description = """
+                    Общее количество сделок определяется полем count_mode: exact (по умолчанию) - точный подсчет,
+                    cached - точный подсчет, закэшированный по фильтру на короткое время,
+                    estimated - оценка планировщика PostgreSQL, none - без подсчета:
+                    page.totalElements и page.totalPages равны null, о следующей странице сообщает has_next.
+                    Форма ответа одинакова для всех режимов.
+                    """
+    )
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
                     description = "Сделки найдены",
                     content = @Content(
                             mediaType = "application/json",
-                            schema = @Schema(implementation = Page.class),
+                            schema = @Schema(implementation = DealSearchPageDTO.class),
                             examples = @ExampleObject(
                                     name = "Найденная страница со сделками",
                                     value = """
@@ -370,7 +520,8 @@ public class DealController implements DealControllerContract {
                                                 "number": 0,
                                                 "totalElements": 3,
                                                 "totalPages": 1
-                                              }
+                                              },
+                                            "has_next": false
                                         }
                                     """
                             )
@@ -378,7 +529,7 @@ public class DealController implements DealControllerContract {
             )
     })
     @PostMapping("/search")
-    public ResponseEntity<Page<DealDTO>> searchDeals(
+    public ResponseEntity<DealSearchPageDTO> searchDeals(
             @Parameter(description = "Фильтр поиска",
                     schema = @Schema(implementation = DealSearchDTO.class))
             @io.swagger.v3.oas.annotations.parameters.RequestBody(
@@ -399,16 +550,239 @@ public class DealController implements DealControllerContract {
                                                   "sortDirection": "DESC"
                                                 }
                                             """
+                                    ),
+                                    @ExampleObject(
+                                            name = "Без подсчета общего количества",
+                                            value = """
+                                                {
+                                                  "type": ["CREDIT"],
+                                                  "page": 0,
+                                                  "size": 20,
+                                                  "count_mode": "none"
+                                                }
+                                            """
                                     )
                             }
                     )
             )
             @RequestBody DealSearchDTO request) {
         log.info("Received request to search deals: {}", request);
-        Page<DealDTO> deals = dealService.searchDeals(request);
+        DealSearchPageDTO deals = dealService.searchDeals(request);
+        return ResponseEntity.ok(deals);
+    }
+
+    @Operation(
+            summary = "Поиск сделок с keyset-пагинацией",
+            description = """
+                    Поиск по тем же фильтрам, что и /search, но без OFFSET и подсчета общего количества.
+                    Для получения следующей страницы передайте next_cursor из ответа в поле cursor,
+                    сохранив sortBy и sortDirection.
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Сделки найдены",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = DealCursorPageDTO.class),
+                            examples = @ExampleObject(
+                                    name = "Страница со сделками и курсором следующей страницы",
+                                    value = """
+                                        {
+                                          "content": [
+                                            {
+                                              "id": "7ab0ec84-7a0d-48bc-aaf5-07ac07661ef1",
+                                              "description": "13324556",
+                                              "agreement_number": "111",
+                                              "agreement_date": "2025-06-05"
+                                            }
+                                          ],
+                                          "size": 1,
+                                          "has_next": true,
+                                          "next_cursor": "YWdyZWVtZW50RGF0ZXxERVNDfDdhYjBlYzg0LTdhMGQtNDhiYy1hYWY1LTA3YWMwNzY2MWVmMXwyMDI1LTA2LTA1"
+                                        }
+                                    """
+                            )
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Некорректный курсор",
+                    content = @Content(
+                            mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                    {
+                                        "error": "Некорректный курсор",
+                                        "message": "Курсор не соответствует сортировке запроса",
+                                    }
+                                    """
+                            )
+                    )
+            )
+    })
+    @PostMapping("/search/cursor")
+    public ResponseEntity<DealCursorPageDTO> searchDealsByCursor(
+            @Parameter(description = "Фильтр поиска",
+                    schema = @Schema(implementation = DealSearchDTO.class))
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Фильтр поиска сделок с курсором предыдущей страницы",
+                    required = true,
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = DealSearchDTO.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Первая страница",
+                                            value = """
+                                                {
+                                                  "size": 10,
+                                                  "sortBy": "agreementDate",
+                                                  "sortDirection": "DESC"
+                                                }
+                                            """
+                                    ),
+                                    @ExampleObject(
+                                            name = "Следующая страница",
+                                            value = """
+                                                {
+                                                  "size": 10,
+                                                  "sortBy": "agreementDate",
+                                                  "sortDirection": "DESC",
+                                                  "cursor": "YWdyZWVtZW50RGF0ZXxERVNDfDdhYjBlYzg0LTdhMGQtNDhiYy1hYWY1LTA3YWMwNzY2MWVmMXwyMDI1LTA2LTA1"
+                                                }
+                                            """
+                                    )
+                            }
+                    )
+            )
+            @RequestBody DealSearchDTO request) {
+        log.info("Received request to search deals by cursor: {}", request);
+        DealCursorPageDTO deals = dealService.searchDealsByCursor(request);
         return ResponseEntity.ok(deals);
     }
 
+    @Operation(
+            summary = "Потоковая выгрузка сделок в формате NDJSON",
+            description = """
+                    Возвращает все сделки, подходящие под фильтры /search, по одной сделке в строке.
+                    Параметры page и size не учитываются, порядок задается sortBy и sortDirection.
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Поток найденных сделок",
+                    content = @Content(
+                            mediaType = "application/x-ndjson",
+                            examples = @ExampleObject(
+                                    name = "Сделки, по одной в строке",
+                                    value = """
+                                        {"id":"7ab0ec84-7a0d-48bc-aaf5-07ac07661ef1","description":"13324556","agreement_number":"111"}
+                                        {"id":"0b9c7f3e-2d4a-4c3f-9a51-6a8f0e5b2c11","description":"Кредит","agreement_number":"112"}
+                                    """
+                            )
+                    )
+            )
+    })
+    @PostMapping(value = "/search/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamDeals(
+            @Parameter(description = "Фильтр поиска",
+                    schema = @Schema(implementation = DealSearchDTO.class))
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Фильтр поиска сделок",
+                    required = true,
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = DealSearchDTO.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Фильтр поиска",
+                                            value = """
+                                                {
+                                                  "type": ["CREDIT"],
+                                                  "sortBy": "agreementDate",
+                                                  "sortDirection": "DESC"
+                                                }
+                                            """
+                                    )
+                            }
+                    )
+            )
+            @RequestBody DealSearchDTO request) {
+        log.info("Received request to stream deals: {}", request);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(outputStream -> dealService.streamDeals(request, outputStream));
+    }
+
+    @Operation(
+            summary = "Количество сделок по статусам, типам и валютам",
+            description = """
+                    Возвращает количество сделок, подходящих под фильтры /search, в разрезе статусов,
+                    типов и валют основной суммы для построения панели фильтров.
+                    Параметры page, size, sortBy и sortDirection не учитываются.
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Количество сделок подсчитано",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = DealFacetsDTO.class),
+                            examples = @ExampleObject(
+                                    name = "Количество сделок по фасетам",
+                                    value = """
+                                        {
+                                          "total": 5,
+                                          "statuses": [
+                                            {"value": "DRAFT", "count": 3},
+                                            {"value": "ACTIVE", "count": 2}
+                                          ],
+                                          "types": [
+                                            {"value": "CREDIT", "count": 4},
+                                            {"value": "OVERDRAFT", "count": 1}
+                                          ],
+                                          "sum_currencies": [
+                                            {"value": "RUB", "count": 4},
+                                            {"value": null, "count": 1}
+                                          ]
+                                        }
+                                    """
+                            )
+                    )
+            )
+    })
+    @PostMapping("/search/facets")
+    public ResponseEntity<DealFacetsDTO> getFacets(
+            @Parameter(description = "Фильтр поиска",
+                    schema = @Schema(implementation = DealSearchDTO.class))
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Фильтр поиска сделок",
+                    required = true,
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = DealSearchDTO.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Фильтр поиска",
+                                            value = """
+                                                {
+                                                  "type": ["CREDIT", "OVERDRAFT"],
+                                                  "agreement_date_from": "2025-01-01"
+                                                }
+                                            """
+                                    )
+                            }
+                    )
+            )
+            @RequestBody DealSearchDTO request) {
+        log.info("Received request to count deal facets: {}", request);
+        DealFacetsDTO facets = dealService.getFacets(request);
+        return ResponseEntity.ok(facets);
+    }
+
     @Operation(summary = "Поиск сделок с пагинацией и фильтрами")
     @ApiResponses(value = {
             @ApiResponse(
@@ -1,17 +1,24 @@
 package io.github.dealmicroservice.controller.v1;
 
+import io.github.dealmicroservice.model.dto.DealBatchGetDTO;
+import io.github.dealmicroservice.model.dto.DealBatchSaveDTO;
+import io.github.dealmicroservice.model.dto.DealBatchSaveResultDTO;
+import io.github.dealmicroservice.model.dto.DealCursorPageDTO;
 import io.github.dealmicroservice.model.dto.DealDTO;
+import io.github.dealmicroservice.model.dto.DealFacetsDTO;
 import io.github.dealmicroservice.model.dto.DealSaveDTO;
 import io.github.dealmicroservice.model.dto.DealSearchDTO;
+import io.github.dealmicroservice.model.dto.DealSearchPageDTO;
 import io.github.dealmicroservice.model.dto.DealStatusChangeRequest;
-import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.List;
 import java.util.UUID;
 
 @RequestMapping("/default")
@@ -20,13 +27,28 @@ public interface DealControllerContract {
     @PutMapping("/save")
     ResponseEntity<DealDTO> saveDeal(DealSaveDTO request);
 
+    @PostMapping("/batch-save")
+    ResponseEntity<List<DealBatchSaveResultDTO>> saveDeals(DealBatchSaveDTO request);
+
     @PatchMapping("/change-status")
     ResponseEntity<DealDTO> changeStatus(DealStatusChangeRequest request);
 
     @GetMapping("/{id}")
     ResponseEntity<DealDTO> getDealById(UUID id);
 
+    @PostMapping("/batch-get")
+    ResponseEntity<List<DealDTO>> getDealsByIds(DealBatchGetDTO request);
+
     @PostMapping("/search")
-    ResponseEntity<Page<DealDTO>> searchDeals(DealSearchDTO searchRequest);
+    ResponseEntity<DealSearchPageDTO> searchDeals(DealSearchDTO searchRequest);
+
+    @PostMapping("/search/cursor")
+    ResponseEntity<DealCursorPageDTO> searchDealsByCursor(DealSearchDTO searchRequest);
+
+    @PostMapping(value = "/search/stream", produces = "application/x-ndjson")
+    ResponseEntity<StreamingResponseBody> streamDeals(DealSearchDTO searchRequest);
+
+    @PostMapping("/search/facets")
+    ResponseEntity<DealFacetsDTO> getFacets(DealSearchDTO searchRequest);
 
 }
@@ -7,6 +7,8 @@ import io.github.dealmicroservice.service.DealTypeService;
 import jakarta.validation.Valid;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -14,11 +16,15 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Duration;
 import java.util.List;
 
 
 /**
- * Контроллер для работы со справочными данными сделок
+ * Контроллер для работы со справочными данными сделок.
+ * Справочники отдаются с ETag по содержимому (хранится в кэше рядом со справочником) и Cache-Control: клиент переиспользует ответ
+ * dealmicroservice.metadata.http.max-age, а затем перепроверяет его через If-None-Match
+ * и получает 304 без тела, пока справочник не изменился.
  */
 @RestController
 @RequestMapping("api/v1")
@@ -26,6 +32,9 @@ public class DealMetadataController {
 
     private final Logger log = LogManager.getLogger(DealMetadataController.class);
 
+    @Value("${dealmicroservice.metadata.http.max-age:PT5M}")
+    private Duration maxAge;
+
     private final DealTypeService dealTypeService;
     private final DealStatusService dealStatusService;
 
@@ -38,14 +47,20 @@ public class DealMetadataController {
     public ResponseEntity<List<DealTypeDTO>> getAllDealTypes() {
         log.info("Received request to get all deal types");
         List<DealTypeDTO> dealTypes = dealTypeService.getAllDealTypes();
-        return ResponseEntity.ok(dealTypes);
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl())
+                .eTag(dealTypeService.getDealTypesETag(dealTypes))
+                .body(dealTypes);
     }
 
     @GetMapping("/deal-status/all")
     public ResponseEntity<List<DealStatusDTO>> getAllDealStatuses() {
         log.info("Received request to get all deal statuses");
         List<DealStatusDTO> dealStatuses = dealStatusService.getAllDealStatuses();
-        return ResponseEntity.ok(dealStatuses);
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl())
+                .eTag(dealStatusService.getDealStatusesETag(dealStatuses))
+                .body(dealStatuses);
     }
 
     @PutMapping("/deal-type/save")
@@ -55,4 +70,8 @@ public class DealMetadataController {
         return ResponseEntity.ok(savedDealType);
     }
 
+    private CacheControl cacheControl() {
+        return CacheControl.maxAge(maxAge).cachePrivate().mustRevalidate();
+    }
+
 }
@@ -2,11 +2,18 @@ package io.github.dealmicroservice.controller.v1.ui;
 
 import io.github.customsecuritystarter.SecurityUtils;
 import io.github.dealmicroservice.controller.v1.DealControllerContract;
+import io.github.dealmicroservice.model.dto.DealBatchGetDTO;
+import io.github.dealmicroservice.model.dto.DealBatchSaveDTO;
+import io.github.dealmicroservice.model.dto.DealBatchSaveResultDTO;
+import io.github.dealmicroservice.model.dto.DealCursorPageDTO;
 import io.github.dealmicroservice.model.dto.DealDTO;
+import io.github.dealmicroservice.model.dto.DealFacetsDTO;
 import io.github.dealmicroservice.model.dto.DealSaveDTO;
 import io.github.dealmicroservice.model.dto.DealSearchDTO;
+import io.github.dealmicroservice.model.dto.DealSearchPageDTO;
 import io.github.dealmicroservice.model.dto.DealStatusChangeRequest;
 import io.github.dealmicroservice.service.DealService;
+import io.github.dealmicroservice.service.ETagUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -18,13 +25,14 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.UUID;
@@ -205,6 +213,68 @@ public class UIDealController implements DealControllerContract {
         return ResponseEntity.ok(savedDeal);
     }
 
+    @Operation(
+            summary = "Создать или обновить несколько сделок",
+            description = """
+                    Сохраняет до 1000 сделок за запрос в одной транзакции: сделка без id создается со статусом DRAFT,
+                    с id - обновляется. Сделка с неизвестным типом или id несуществующей сделки не сохраняется
+                    и возвращается со статусом FAILED и причиной ошибки, остальные сделки сохраняются.
+                    Результаты возвращаются в порядке запроса; созданным сделкам присваиваются идентификаторы.
+                    **Доступ по ролям:**
+                    - **DEAL_SUPERUSER** - может создавать/обновлять любые сделки
+                    - **SUPERUSER** - может создавать/обновлять любые сделки
+                    """,
+            security = @io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Результаты сохранения сделок",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = DealBatchSaveResultDTO.class),
+                            examples = @ExampleObject(
+                                    value = """
+                                        [
+                                          {
+                                            "index": 0,
+                                            "id": "123e4567-e89b-12d3-a456-426614174000",
+                                            "status": "CREATED",
+                                            "error": null
+                                          },
+                                          {
+                                            "index": 1,
+                                            "id": "7ab0ec84-7a0d-48bc-aaf5-07ac07661ef1",
+                                            "status": "FAILED",
+                                            "error": "Тип сделки UNKNOWN не найден"
+                                          }
+                                        ]
+                                    """
+                            )
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Пустой или слишком длинный список сделок"
+            )
+    })
+    @PreAuthorize("hasAnyRole('DEAL_SUPERUSER', 'SUPERUSER')")
+    @Override
+    public ResponseEntity<List<DealBatchSaveResultDTO>> saveDeals(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Сделки для сохранения",
+                    required = true,
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = DealBatchSaveDTO.class)
+                    )
+            )
+            @Valid @RequestBody DealBatchSaveDTO request) {
+        log.info("UI Request to save {} deals", request.getDeals().size());
+        List<DealBatchSaveResultDTO> results = dealService.saveDeals(request.getDeals());
+        return ResponseEntity.ok(results);
+    }
+
     @Operation(
             summary = "Изменить статус сделки",
             description = """
@@ -435,6 +505,10 @@ public class UIDealController implements DealControllerContract {
                             )
                     )
             ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Сделка не изменилась с версии из If-None-Match (ETag), тело ответа пустое"
+            ),
             @ApiResponse(
                     responseCode = "401",
                     description = "Не авторизован - требуется JWT токен",
@@ -496,7 +570,50 @@ public class UIDealController implements DealControllerContract {
             return ResponseEntity.status(403).build();
         }
 
-        return ResponseEntity.ok(deal);
+        return ResponseEntity.ok()
+                .eTag(ETagUtils.of(deal.getEtag(), deal))
+                .body(deal);
+    }
+
+    @Operation(
+            summary = "Получить несколько сделок по ID",
+            description = """
+                    Возвращает сделки в порядке идентификаторов запроса (не более 100 за запрос) с учетом ролевых ограничений:
+                    сделки типов, недоступных пользователю, а также несуществующие и неактивные сделки в ответ не попадают.
+                    """,
+            security = @io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Найденные сделки",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = DealDTO.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Пустой или слишком длинный список идентификаторов"
+            )
+    })
+    @PreAuthorize("hasAnyRole('USER', 'CREDIT_USER', 'OVERDRAFT_USER', 'DEAL_SUPERUSER', 'SUPERUSER')")
+    @Override
+    public ResponseEntity<List<DealDTO>> getDealsByIds(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Идентификаторы сделок",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = DealBatchGetDTO.class)
+                    )
+            )
+            @Valid @RequestBody DealBatchGetDTO request) {
+
+        List<DealDTO> deals = dealService.getDealsByIds(request.getIds()).stream()
+                .filter(deal -> securityUtils.hasDealAccess(deal.getType().getId()))
+                .toList();
+
+        return ResponseEntity.ok(deals);
     }
 
     @Operation(
@@ -517,7 +634,7 @@ public class UIDealController implements DealControllerContract {
                     description = "Сделки найдены",
                     content = @Content(
                             mediaType = "application/json",
-                            schema = @Schema(implementation = DealDTO.class),
+                            schema = @Schema(implementation = DealSearchPageDTO.class),
                             examples = @ExampleObject(
                                     name = "Найденная страница со сделками",
                                     value = """
@@ -567,7 +684,8 @@ public class UIDealController implements DealControllerContract {
                                                 "number": 0,
                                                 "totalElements": 3,
                                                 "totalPages": 1
-                                              }
+                                              },
+                                            "has_next": false
                                         }
                                     """
                             )
@@ -607,7 +725,7 @@ public class UIDealController implements DealControllerContract {
     })
     @PreAuthorize("hasAnyRole('CREDIT_USER', 'OVERDRAFT_USER', 'DEAL_SUPERUSER', 'SUPERUSER')")
     @Override
-    public ResponseEntity<Page<DealDTO>> searchDeals(
+    public ResponseEntity<DealSearchPageDTO> searchDeals(
             @Parameter(description = "Фильтр поиска (опционально)",
                     schema = @Schema(implementation = DealSearchDTO.class))
             @io.swagger.v3.oas.annotations.parameters.RequestBody(
@@ -641,6 +759,144 @@ public class UIDealController implements DealControllerContract {
             )
             @RequestBody(required = false) DealSearchDTO searchRequest) {
 
+        DealSearchPageDTO result = dealService.searchDeals(applyTypeRestrictions(searchRequest));
+        return ResponseEntity.ok(result);
+    }
+
+    @Operation(
+            summary = "Поиск сделок с keyset-пагинацией",
+            description = """
+                    Поиск по тем же фильтрам и с теми же ролевыми ограничениями, что и /search,
+                    но без OFFSET и подсчета общего количества.
+                    Для получения следующей страницы передайте next_cursor из ответа в поле cursor,
+                    сохранив sortBy и sortDirection.
+                    """,
+            security = @io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Сделки найдены",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = DealCursorPageDTO.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Некорректный курсор",
+                    content = @Content(
+                            mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                    {
+                                        "error": "Некорректный курсор",
+                                        "message": "Курсор не соответствует сортировке запроса",
+                                    }
+                                    """
+                            )
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Недостаточно прав - требуется одна из ролей: CREDIT_USER, OVERDRAFT_USER, DEAL_SUPERUSER, SUPERUSER"
+            )
+    })
+    @PreAuthorize("hasAnyRole('CREDIT_USER', 'OVERDRAFT_USER', 'DEAL_SUPERUSER', 'SUPERUSER')")
+    @Override
+    public ResponseEntity<DealCursorPageDTO> searchDealsByCursor(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Фильтр сделки с параметрами поиска и курсором предыдущей страницы",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = DealSearchDTO.class)
+                    )
+            )
+            @RequestBody(required = false) DealSearchDTO searchRequest) {
+
+        DealCursorPageDTO result = dealService.searchDealsByCursor(applyTypeRestrictions(searchRequest));
+        return ResponseEntity.ok(result);
+    }
+
+    @Operation(
+            summary = "Потоковая выгрузка сделок в формате NDJSON",
+            description = """
+                    Возвращает все сделки, подходящие под фильтры и ролевые ограничения /search,
+                    по одной сделке в строке. Параметры page и size не учитываются.
+                    """,
+            security = @io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Поток найденных сделок",
+                    content = @Content(mediaType = "application/x-ndjson")
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Недостаточно прав - требуется одна из ролей: CREDIT_USER, OVERDRAFT_USER, DEAL_SUPERUSER, SUPERUSER"
+            )
+    })
+    @PreAuthorize("hasAnyRole('CREDIT_USER', 'OVERDRAFT_USER', 'DEAL_SUPERUSER', 'SUPERUSER')")
+    @Override
+    public ResponseEntity<StreamingResponseBody> streamDeals(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Фильтр сделки с параметрами поиска и сортировки",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = DealSearchDTO.class)
+                    )
+            )
+            @RequestBody(required = false) DealSearchDTO searchRequest) {
+
+        DealSearchDTO request = applyTypeRestrictions(searchRequest);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(outputStream -> dealService.streamDeals(request, outputStream));
+    }
+
+    @Operation(
+            summary = "Количество сделок по статусам, типам и валютам",
+            description = """
+                    Возвращает количество сделок, подходящих под фильтры и ролевые ограничения /search,
+                    в разрезе статусов, типов и валют основной суммы.
+                    """,
+            security = @io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Количество сделок подсчитано",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = DealFacetsDTO.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Недостаточно прав - требуется одна из ролей: CREDIT_USER, OVERDRAFT_USER, DEAL_SUPERUSER, SUPERUSER"
+            )
+    })
+    @PreAuthorize("hasAnyRole('CREDIT_USER', 'OVERDRAFT_USER', 'DEAL_SUPERUSER', 'SUPERUSER')")
+    @Override
+    public ResponseEntity<DealFacetsDTO> getFacets(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Фильтр сделки с параметрами поиска",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = DealSearchDTO.class)
+                    )
+            )
+            @RequestBody(required = false) DealSearchDTO searchRequest) {
+
+        DealFacetsDTO result = dealService.getFacets(applyTypeRestrictions(searchRequest));
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Ограничивает типы сделок в фильтре в соответствии с ролями текущего пользователя
+     */
+    private DealSearchDTO applyTypeRestrictions(DealSearchDTO searchRequest) {
+
         if (searchRequest == null) {
             searchRequest = new DealSearchDTO();
         }
@@ -658,8 +914,7 @@ public class UIDealController implements DealControllerContract {
             }
         }
 
-        Page<DealDTO> result = dealService.searchDeals(searchRequest);
-        return ResponseEntity.ok(result);
+        return searchRequest;
     }
 
 }
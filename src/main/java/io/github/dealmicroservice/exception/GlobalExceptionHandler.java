@@ -49,6 +49,21 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorBody);
     }
 
+    /**
+     * Обработка исключения InvalidSearchCursorException
+     */
+    @ExceptionHandler(InvalidSearchCursorException.class)
+    public ResponseEntity<Map<String, Object>> invalidSearchCursorException(
+            InvalidSearchCursorException ex, WebRequest request) {
+
+        Map<String, Object> errorBody = new HashMap<>();
+        errorBody.put("error", "Некорректный курсор");
+        errorBody.put("message", ex.getMessage());
+        errorBody.put("status", HttpStatus.BAD_REQUEST.value());
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorBody);
+    }
+
     /**
      * Обработка ошибок валидации
      */
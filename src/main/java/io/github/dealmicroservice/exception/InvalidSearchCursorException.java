@@ -0,0 +1,12 @@
+package io.github.dealmicroservice.exception;
+
+/**
+ * Exception некорректного курсора поиска
+ */
+public class InvalidSearchCursorException extends RuntimeException {
+
+    public InvalidSearchCursorException(String message) {
+        super(message);
+    }
+
+}
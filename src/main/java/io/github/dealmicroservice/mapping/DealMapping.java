@@ -1,20 +1,29 @@
 package io.github.dealmicroservice.mapping;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.dealmicroservice.model.dto.DealContractorDTO;
 import io.github.dealmicroservice.model.dto.DealDTO;
 import io.github.dealmicroservice.model.dto.DealStatusDTO;
 import io.github.dealmicroservice.model.dto.DealSumDTO;
 import io.github.dealmicroservice.model.dto.RoleDTO;
 import io.github.dealmicroservice.model.dto.DealTypeDTO;
+import io.github.dealmicroservice.model.entity.ContractorRole;
 import io.github.dealmicroservice.model.entity.Deal;
 import io.github.dealmicroservice.model.entity.DealContractor;
+import io.github.dealmicroservice.model.entity.DealSearchView;
 import io.github.dealmicroservice.model.entity.DealStatus;
 import io.github.dealmicroservice.model.entity.DealType;
 import io.github.dealmicroservice.model.entity.ContractorToRole;
+import io.github.dealmicroservice.model.projection.DealSearchProjection;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
@@ -25,7 +34,36 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class DealMapping {
 
+    private static final TypeReference<List<DealContractorDTO>> CONTRACTORS_TYPE = new TypeReference<>() { };
+
+    private final ObjectMapper objectMapper;
+
     public DealDTO mapToDTO(Deal deal) {
+        return mapToDTO(deal, contractor -> mapRolesToDTO(contractor.getRoles()));
+    }
+
+    /**
+     * Преобразует сделку в DTO, беря роли контрагентов из заранее загруженного словаря
+     * вместо ленивой коллекции DealContractor.roles
+     *
+     * @param rolesByContractorId активные роли по идентификатору контрагента сделки
+     */
+    public DealDTO mapToDTO(Deal deal, Map<UUID, List<RoleDTO>> rolesByContractorId) {
+        return mapToDTO(deal, contractor -> rolesByContractorId.getOrDefault(contractor.getId(), List.of()));
+    }
+
+    /**
+     * Преобразует роль контрагента в DTO
+     */
+    public RoleDTO mapRoleToDTO(ContractorRole role) {
+        return RoleDTO.builder()
+                .id(role.getId())
+                .name(role.getName())
+                .category(role.getCategory())
+                .build();
+    }
+
+    private DealDTO mapToDTO(Deal deal, Function<DealContractor, List<RoleDTO>> rolesResolver) {
         if (deal == null) {
             return null;
         }
@@ -41,10 +79,77 @@ public class DealMapping {
                 .status(mapStatusToDTO(deal.getStatus()))
                 .sum(mapMainSumToDTO(deal))
                 .closeDt(deal.getCloseDt())
-                .contractors(mapContractorsToDTO(deal.getContractors()))
+                .contractors(mapContractorsToDTO(deal.getContractors(), rolesResolver))
+                .build();
+    }
+
+    /**
+     * Преобразует плоскую проекцию поиска в DTO без обращения к сущностям
+     */
+    public DealDTO mapToDTO(DealSearchProjection projection) {
+        if (projection == null) {
+            return null;
+        }
+
+        return DealDTO.builder()
+                .id(projection.getId())
+                .description(projection.getDescription())
+                .agreementNumber(projection.getAgreementNumber())
+                .agreementDate(projection.getAgreementDate())
+                .agreementStartDate(projection.getAgreementStartDate())
+                .availabilityDate(projection.getAvailabilityDate())
+                .type(projection.getTypeId() != null
+                        ? DealTypeDTO.builder().id(projection.getTypeId()).name(projection.getTypeName()).build()
+                        : null)
+                .status(projection.getStatusId() != null
+                        ? DealStatusDTO.builder().id(projection.getStatusId()).name(projection.getStatusName()).build()
+                        : null)
+                .sum(projection.getSum() != null
+                        ? DealSumDTO.builder().value(projection.getSum()).currency(projection.getCurrencyId()).build()
+                        : null)
+                .closeDt(projection.getCloseDt())
+                .contractors(mapContractorsJsonToDTO(projection.getContractorsJson()))
                 .build();
     }
 
+    /**
+     * Преобразует строку модели чтения deal_search_view в DTO
+     */
+    public DealDTO mapToDTO(DealSearchView view) {
+        if (view == null) {
+            return null;
+        }
+
+        return mapToDTO(new DealSearchProjection(
+                view.getId(),
+                view.getDescription(),
+                view.getAgreementNumber(),
+                view.getAgreementDate(),
+                view.getAgreementStartDate(),
+                view.getAvailabilityDate(),
+                view.getCloseDt(),
+                view.getTypeId(),
+                view.getTypeName(),
+                view.getStatusId(),
+                view.getStatusName(),
+                view.getSum(),
+                view.getCurrencyId(),
+                view.getContractorsJson()
+        ));
+    }
+
+    private List<DealContractorDTO> mapContractorsJsonToDTO(String contractorsJson) {
+        if (contractorsJson == null) {
+            return null;
+        }
+
+        try {
+            return objectMapper.readValue(contractorsJson, CONTRACTORS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to parse deal contractors", e);
+        }
+    }
+
     private DealTypeDTO mapTypeToDTO(DealType type) {
         if (type == null) {
             return null;
@@ -82,24 +187,26 @@ public class DealMapping {
                 .orElse(null);
     }
 
-    private List<DealContractorDTO> mapContractorsToDTO(List<DealContractor> contractors) {
+    private List<DealContractorDTO> mapContractorsToDTO(List<DealContractor> contractors,
+                                                        Function<DealContractor, List<RoleDTO>> rolesResolver) {
         if (contractors == null) {
             return null;
         }
 
         return contractors.stream()
                 .filter(contractor -> Boolean.TRUE.equals(contractor.getIsActive()))
-                .map(this::mapContractorToDTO)
+                .map(contractor -> mapContractorToDTO(contractor, rolesResolver))
                 .collect(Collectors.toList());
     }
 
-    private DealContractorDTO mapContractorToDTO(DealContractor contractor) {
+    private DealContractorDTO mapContractorToDTO(DealContractor contractor,
+                                                 Function<DealContractor, List<RoleDTO>> rolesResolver) {
         return DealContractorDTO.builder()
                 .id(contractor.getId())
                 .contractorId(contractor.getContractorId())
                 .name(contractor.getName())
                 .main(contractor.getMain())
-                .roles(mapRolesToDTO(contractor.getRoles()))
+                .roles(rolesResolver.apply(contractor))
                 .build();
     }
 
@@ -110,11 +217,7 @@ public class DealMapping {
 
         return roles.stream()
                 .filter(role -> Boolean.TRUE.equals(role.getIsActive()))
-                .map(role -> RoleDTO.builder()
-                        .id(role.getRole().getId())
-                        .name(role.getRole().getName())
-                        .category(role.getRole().getCategory())
-                        .build())
+                .map(role -> mapRoleToDTO(role.getRole()))
                 .collect(Collectors.toList());
     }
 
@@ -0,0 +1,26 @@
+package io.github.dealmicroservice.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Запрос на получение нескольких сделок по идентификаторам")
+public class DealBatchGetDTO {
+
+    @NotEmpty(message = "Список идентификаторов сделок не может быть пустым")
+    @Size(max = 100, message = "За один запрос можно получить не более 100 сделок")
+    @Schema(description = "Идентификаторы сделок; сделки возвращаются в том же порядке",
+            example = "['123e4567-e89b-12d3-a456-426614174000', '7ab0ec84-7a0d-48bc-aaf5-07ac07661ef1']")
+    private List<@NotNull UUID> ids;
+
+}
@@ -0,0 +1,25 @@
+package io.github.dealmicroservice.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Запрос на создание и обновление нескольких сделок")
+public class DealBatchSaveDTO {
+
+    @NotEmpty(message = "Список сделок не может быть пустым")
+    @Size(max = 1000, message = "За один запрос можно сохранить не более 1000 сделок")
+    @Schema(description = "Сделки для сохранения: без id - создание, с id - обновление существующей сделки")
+    private List<@NotNull @Valid DealSaveDTO> deals;
+
+}
@@ -0,0 +1,37 @@
+package io.github.dealmicroservice.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Результат сохранения одной сделки из пакета")
+public class DealBatchSaveResultDTO {
+
+    @Schema(description = "Позиция сделки в запросе", example = "0")
+    private int index;
+
+    @Schema(description = "Идентификатор сделки; для созданной сделки - присвоенный сервисом",
+            example = "123e4567-e89b-12d3-a456-426614174000")
+    private UUID id;
+
+    @Schema(description = "Итог сохранения", example = "CREATED")
+    private Status status;
+
+    @Schema(description = "Причина ошибки для status = FAILED", example = "Тип сделки UNKNOWN не найден")
+    private String error;
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        FAILED
+    }
+
+}
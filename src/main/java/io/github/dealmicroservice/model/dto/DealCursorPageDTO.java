@@ -0,0 +1,34 @@
+package io.github.dealmicroservice.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Страница результатов поиска сделок с keyset-пагинацией")
+public class DealCursorPageDTO {
+
+    @Schema(description = "Сделки страницы")
+    private List<DealDTO> content;
+
+    @Schema(description = "Запрошенный размер страницы", example = "10")
+    private Integer size;
+
+    @Schema(description = "Признак наличия следующей страницы", example = "true")
+    @JsonProperty("has_next")
+    private Boolean hasNext;
+
+    @Schema(description = "Курсор следующей страницы (null, если страница последняя)",
+            example = "YWdyZWVtZW50RGF0ZXxERVNDfDdhYjBlYzg0LTdhMGQtNDhiYy1hYWY1LTA3YWMwNzY2MWVmMXwyMDI1LTA2LTA1")
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+
+}
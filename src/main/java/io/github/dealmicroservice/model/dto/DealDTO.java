@@ -1,12 +1,15 @@
 package io.github.dealmicroservice.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.springframework.data.annotation.Transient;
 
 import java.time.LocalDate;
@@ -68,5 +71,15 @@ public class DealDTO {
     @Transient
     private List<DealContractorDTO> contractors;
 
+    /**
+     * ETag сделки, вычисляется при загрузке в кэш "deals" и хранится вместе с ней;
+     * в ответы API не входит и в сравнении DTO не участвует
+     */
+    @JsonIgnore
+    @Schema(hidden = true)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private String etag;
+
 }
 
@@ -0,0 +1,20 @@
+package io.github.dealmicroservice.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Количество сделок с одним значением фасета")
+public class DealFacetCountDTO {
+
+    @Schema(description = "Значение фасета (идентификатор статуса, типа или валюты; null - значение не задано)", example = "DRAFT")
+    private String value;
+
+    @Schema(description = "Количество сделок", example = "12")
+    private Long count;
+
+}
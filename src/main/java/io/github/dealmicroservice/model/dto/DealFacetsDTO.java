@@ -0,0 +1,32 @@
+package io.github.dealmicroservice.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Количество сделок по статусам, типам и валютам основной суммы для фильтра поиска")
+public class DealFacetsDTO {
+
+    @Schema(description = "Всего сделок, подходящих под фильтр", example = "20")
+    private Long total;
+
+    @Schema(description = "Количество сделок по статусам")
+    private List<DealFacetCountDTO> statuses;
+
+    @Schema(description = "Количество сделок по типам")
+    private List<DealFacetCountDTO> types;
+
+    @Schema(description = "Количество сделок по валютам основной суммы")
+    @JsonProperty("sum_currencies")
+    private List<DealFacetCountDTO> sumCurrencies;
+
+}
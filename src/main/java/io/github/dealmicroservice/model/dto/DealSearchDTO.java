@@ -27,6 +27,11 @@ public class DealSearchDTO {
     @Schema(description = "Описание сделки", example = "Поставка оборудования")
     private String description;
 
+    @Schema(description = "Полнотекстовый поиск по описанию сделки: слова с учетом словоформ, \"фраза\", or, -исключение",
+            example = "поставка оборудования -ремонт")
+    @JsonProperty("description_query")
+    private String descriptionQuery;
+
     @Schema(description = "Номер соглашения", example = "AG-2024-001")
     @JsonProperty("agreement_number")
     private String agreementNumber;
@@ -81,9 +86,10 @@ public class DealSearchDTO {
     @Max(value = 100, message = "Размер страницы не может быть больше 100")
     private Integer size = 10;
 
-    @Schema(description = "Поле для сортировки", example = "id", defaultValue = "id",
-            allowableValues = {"id", "description", "agreementNumber", "agreementDate", "availabilityDate", "type", "status", "closeDt"})
-    @Pattern(regexp = "^(id|description|agreementNumber|agreementDate|availabilityDate|type|status|closeDt)$",
+    @Schema(description = "Поле для сортировки (relevance - по релевантности description_query, сначала наиболее релевантные)",
+            example = "id", defaultValue = "id",
+            allowableValues = {"id", "description", "agreementNumber", "agreementDate", "availabilityDate", "type", "status", "closeDt", "relevance"})
+    @Pattern(regexp = "^(id|description|agreementNumber|agreementDate|availabilityDate|type|status|closeDt|relevance)$",
             message = "Недопустимое поле для сортировки")
     private String sortBy = "id";
 
@@ -92,4 +98,17 @@ public class DealSearchDTO {
     @Pattern(regexp = "^(ASC|DESC)$", message = "Направление сортировки должно быть ASC или DESC")
     private String sortDirection = "ASC";
 
+    @Schema(description = """
+            Режим подсчета общего количества сделок: exact - точный COUNT, cached - точный COUNT,
+            закэшированный по фильтру на короткое время, estimated - оценка планировщика PostgreSQL,
+            none - без подсчета (в ответе только признак наличия следующей страницы)""",
+            example = "exact", defaultValue = "exact", allowableValues = {"exact", "cached", "estimated", "none"})
+    @Pattern(regexp = "^(exact|cached|estimated|none)$", message = "Недопустимый режим подсчета")
+    @JsonProperty("count_mode")
+    private String countMode = "exact";
+
+    @Schema(description = "Курсор следующей страницы для keyset-пагинации (значение next_cursor из предыдущего ответа)",
+            example = "YWdyZWVtZW50RGF0ZXxERVNDfDdhYjBlYzg0LTdhMGQtNDhiYy1hYWY1LTA3YWMwNzY2MWVmMXwyMDI1LTA2LTA1")
+    private String cursor;
+
 }
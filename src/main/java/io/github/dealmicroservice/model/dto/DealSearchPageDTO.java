@@ -0,0 +1,50 @@
+package io.github.dealmicroservice.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Страница результатов поиска сделок. Форма ответа не зависит от режима подсчета count_mode")
+public class DealSearchPageDTO {
+
+    @Schema(description = "Сделки страницы")
+    private List<DealDTO> content;
+
+    @Schema(description = "Параметры страницы и общее количество найденных сделок")
+    private PageMetadata page;
+
+    @Schema(description = "Признак наличия следующей страницы", example = "true")
+    @JsonProperty("has_next")
+    private Boolean hasNext;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    @Schema(description = "Параметры страницы в том же виде, что и у постраничных ответов Spring Data")
+    public static class PageMetadata {
+
+        @Schema(description = "Запрошенный размер страницы", example = "10")
+        private Integer size;
+
+        @Schema(description = "Номер страницы, начиная с 0", example = "0")
+        private Integer number;
+
+        @Schema(description = "Общее количество найденных сделок (null при count_mode=none)", example = "3", nullable = true)
+        private Long totalElements;
+
+        @Schema(description = "Общее количество страниц (null при count_mode=none)", example = "1", nullable = true)
+        private Integer totalPages;
+
+    }
+
+}
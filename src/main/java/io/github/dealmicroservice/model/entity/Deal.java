@@ -5,6 +5,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import jakarta.persistence.Column;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.CascadeType;
@@ -35,26 +36,15 @@ import java.util.UUID;
 @Builder
 @AllArgsConstructor
 @NamedEntityGraphs({
-    @NamedEntityGraph(
-        name = "Deal.withTypeAndStatus",
-        attributeNodes = {
-            @NamedAttributeNode("type"),
-            @NamedAttributeNode("status")
-        }
-    ),
     @NamedEntityGraph(
         name = "Deal.withSums",
         attributeNodes = {
-            @NamedAttributeNode("type"),
-            @NamedAttributeNode("status"),
             @NamedAttributeNode("sums")
         }
     ),
     @NamedEntityGraph(
         name = "Deal.withContractors",
         attributeNodes = {
-            @NamedAttributeNode("type"),
-            @NamedAttributeNode("status"),
             @NamedAttributeNode("contractors")
         }
     )
@@ -106,11 +96,14 @@ public class Deal {
     @Column(name = "status_id")
     private String statusId;
 
-    @ManyToOne
+    /**
+     * Тип и статус не подтягиваются соединениями: ленивые ссылки разрешаются из кэша второго уровня
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "type_id", insertable = false, updatable = false)
     private DealType type;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "status_id", insertable = false, updatable = false)
     private DealStatus status;
 
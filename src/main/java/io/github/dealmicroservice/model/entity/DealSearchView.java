@@ -0,0 +1,91 @@
+package io.github.dealmicroservice.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Строка денормализованной модели чтения для поиска сделок.
+ * Заполняется только SQL-функциями refresh_deal_search_view / rebuild_deal_search_view,
+ * поэтому сущность доступна только для чтения.
+ * Строки поиска по заемщику и поручителю содержат contractor_id, имя и ИНН
+ * всех контрагентов соответствующей категории в нижнем регистре.
+ */
+@Entity
+@Immutable
+@Table(name = "deal_search_view")
+@Data
+@NoArgsConstructor
+public class DealSearchView {
+
+    @Id
+    @Column(name = "deal_id")
+    private UUID id;
+
+    @Column(name = "description")
+    private String description;
+
+    @Column(name = "agreement_number")
+    private String agreementNumber;
+
+    @Column(name = "agreement_date")
+    private LocalDate agreementDate;
+
+    @Column(name = "agreement_start_date")
+    private LocalDateTime agreementStartDate;
+
+    @Column(name = "availability_date")
+    private LocalDate availabilityDate;
+
+    @Column(name = "close_dt")
+    private LocalDateTime closeDt;
+
+    @Column(name = "type_id")
+    private String typeId;
+
+    @Column(name = "type_name")
+    private String typeName;
+
+    @Column(name = "status_id")
+    private String statusId;
+
+    @Column(name = "status_name")
+    private String statusName;
+
+    @Column(name = "sum")
+    private BigDecimal sum;
+
+    @Column(name = "currency_id")
+    private String currencyId;
+
+    @Column(name = "main_contractor_id")
+    private String mainContractorId;
+
+    @Column(name = "main_contractor_name")
+    private String mainContractorName;
+
+    @Column(name = "main_contractor_inn")
+    private String mainContractorInn;
+
+    @Column(name = "borrower_search")
+    private String borrowerSearch;
+
+    @Column(name = "warranty_search")
+    private String warrantySearch;
+
+    @Column(name = "contractors_json")
+    private String contractorsJson;
+
+    @Column(name = "refresh_date")
+    private LocalDateTime refreshDate;
+
+}
@@ -5,6 +5,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import jakarta.persistence.Column;
 import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.JoinColumn;
@@ -49,7 +50,7 @@ public class DealSum {
     @JoinColumn(name = "deal_id", insertable = false, updatable = false)
     private Deal deal;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "currency_id", insertable = false, updatable = false)
     private Currency currency;
 
@@ -0,0 +1,19 @@
+package io.github.dealmicroservice.model.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * Связь контрагента сделки с ролью без загрузки сущностей ContractorToRole и ContractorRole
+ */
+@Data
+@AllArgsConstructor
+public class ContractorRoleLink {
+
+    private UUID contractorId;
+
+    private String roleId;
+
+}
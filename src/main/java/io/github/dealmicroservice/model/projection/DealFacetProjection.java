@@ -0,0 +1,23 @@
+package io.github.dealmicroservice.model.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Строка сгруппированного подсчета сделок для фасетов поиска:
+ * количество сделок с данными статусом, типом и валютой основной суммы
+ * (валюта null - у сделки нет активной основной суммы)
+ */
+@Data
+@AllArgsConstructor
+public class DealFacetProjection {
+
+    private String statusId;
+
+    private String typeId;
+
+    private String currencyId;
+
+    private Long count;
+
+}
@@ -0,0 +1,48 @@
+package io.github.dealmicroservice.model.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Плоская проекция сделки для поиска и получения по id: поля сделки, тип, статус, основная сумма
+ * и активные контрагенты с ролями, агрегированные в JSON на стороне БД.
+ * Строится одним запросом без загрузки управляемых сущностей Deal.
+ */
+@Data
+@AllArgsConstructor
+public class DealSearchProjection {
+
+    private UUID id;
+
+    private String description;
+
+    private String agreementNumber;
+
+    private LocalDate agreementDate;
+
+    private LocalDateTime agreementStartDate;
+
+    private LocalDate availabilityDate;
+
+    private LocalDateTime closeDt;
+
+    private String typeId;
+
+    private String typeName;
+
+    private String statusId;
+
+    private String statusName;
+
+    private BigDecimal sum;
+
+    private String currencyId;
+
+    private String contractorsJson;
+
+}
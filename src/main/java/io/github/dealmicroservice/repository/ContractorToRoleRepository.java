@@ -1,9 +1,13 @@
 package io.github.dealmicroservice.repository;
 
 import io.github.dealmicroservice.model.entity.ContractorToRole;
+import io.github.dealmicroservice.model.projection.ContractorRoleLink;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -12,4 +16,12 @@ public interface ContractorToRoleRepository extends JpaRepository<ContractorToRo
 
     Optional<ContractorToRole> findByContractorIdAndRoleIdAndIsActiveTrue(UUID contractorId, String roleId);
 
+    @Query("""
+        SELECT new io.github.dealmicroservice.model.projection.ContractorRoleLink(ctr.contractorId, ctr.roleId)
+        FROM ContractorToRole ctr
+        WHERE ctr.contractorId IN :contractorIds
+          AND ctr.isActive = true
+        """)
+    List<ContractorRoleLink> findActiveRoleLinks(Collection<UUID> contractorIds);
+
 }
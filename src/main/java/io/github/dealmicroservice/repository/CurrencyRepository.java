@@ -0,0 +1,8 @@
+package io.github.dealmicroservice.repository;
+
+import io.github.dealmicroservice.model.entity.Currency;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CurrencyRepository extends JpaRepository<Currency, String> {
+
+}
@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -24,4 +25,12 @@ public interface DealContractorRepository extends JpaRepository<DealContractor,
         """)
     int updateContractorInfo(String contractorId, String name, String inn);
 
+    @Query("""
+        SELECT DISTINCT dc.dealId
+        FROM DealContractor dc
+        WHERE dc.contractorId = :contractorId
+          AND dc.isActive = true
+        """)
+    List<UUID> findDealIdsByContractorId(String contractorId);
+
 }
@@ -0,0 +1,81 @@
+package io.github.dealmicroservice.repository;
+
+import io.github.dealmicroservice.model.entity.Deal;
+import io.github.dealmicroservice.model.projection.DealFacetProjection;
+import io.github.dealmicroservice.model.projection.DealSearchProjection;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Дополнительные запросы к сделкам, не выражаемые через производные методы Spring Data
+ */
+public interface DealRepositoryCustom {
+
+    /**
+     * Выбирает страницу сделок в виде плоской проекции одним запросом
+     * @param specification фильтр поиска
+     * @param sortField поле сортировки (id используется как дополнительный ключ сортировки)
+     * @param descending признак сортировки по убыванию
+     * @param offset смещение первой строки
+     * @param limit максимальное количество строк
+     */
+    List<DealSearchProjection> findProjections(Specification<Deal> specification, DealSortField sortField,
+                                               boolean descending, long offset, int limit);
+
+    /**
+     * Выбирает активную сделку со всеми данными карточки одним запросом: тип, статус, основная сумма
+     * и активные контрагенты с ролями
+     * @param id идентификатор сделки
+     */
+    Optional<DealSearchProjection> findAggregateById(UUID id);
+
+    /**
+     * Выбирает активные сделки по списку идентификаторов одним запросом с теми же данными, что и findAggregateById
+     * @param ids идентификаторы сделок
+     */
+    List<DealSearchProjection> findAggregatesByIds(Collection<UUID> ids);
+
+    /**
+     * Выбирает страницу сделок по скомпилированному запросу; тип и статус сделок берутся из кэша второго уровня
+     * @param query запрос, построенный DealSearchQueryCompiler
+     * @param offset смещение первой строки
+     * @param limit максимальное количество строк
+     */
+    List<Deal> findPage(DealSearchQuery query, long offset, int limit);
+
+    /**
+     * Подсчитывает сделки по скомпилированному запросу
+     * @param query запрос, построенный DealSearchQueryCompiler
+     */
+    long count(DealSearchQuery query);
+
+    /**
+     * Оценивает количество сделок по скомпилированному запросу без его выполнения -
+     * по числу строк, ожидаемому планировщиком PostgreSQL (EXPLAIN)
+     * @param query запрос, построенный DealSearchQueryCompiler
+     */
+    long estimateCount(DealSearchQuery query);
+
+    /**
+     * Подсчитывает сделки одним запросом с группировкой по статусу, типу и валюте активной основной суммы
+     * @param specification фильтр поиска
+     */
+    List<DealFacetProjection> findFacets(Specification<Deal> specification);
+
+    /**
+     * Потоково выбирает идентификаторы сделок через серверный курсор БД.
+     * Поток должен быть закрыт и прочитан внутри транзакции.
+     * @param specification фильтр поиска
+     * @param sortField поле сортировки (id используется как дополнительный ключ сортировки)
+     * @param descending признак сортировки по убыванию
+     * @param fetchSize количество строк, получаемых из БД за одно обращение
+     */
+    Stream<UUID> streamIds(Specification<Deal> specification, DealSortField sortField,
+                           boolean descending, int fetchSize);
+
+}
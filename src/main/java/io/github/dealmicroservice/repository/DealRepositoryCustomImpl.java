@@ -0,0 +1,227 @@
+package io.github.dealmicroservice.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.dealmicroservice.model.entity.Deal;
+import io.github.dealmicroservice.model.entity.DealStatus;
+import io.github.dealmicroservice.model.entity.DealSum;
+import io.github.dealmicroservice.model.entity.DealType;
+import io.github.dealmicroservice.model.projection.DealFacetProjection;
+import io.github.dealmicroservice.model.projection.DealSearchProjection;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Реализация дополнительных запросов к сделкам на Criteria API и скомпилированном JPQL
+ */
+public class DealRepositoryCustomImpl implements DealRepositoryCustom {
+
+    /**
+     * SQL-функция из changelog 002_create_deal_contractors_json_function,
+     * возвращающая активных контрагентов сделки с ролями в виде JSON-массива
+     */
+    private static final String CONTRACTORS_JSON_FUNCTION = "deal_contractors_json";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    public DealRepositoryCustomImpl(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public List<DealSearchProjection> findProjections(Specification<Deal> specification, DealSortField sortField,
+                                                      boolean descending, long offset, int limit) {
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<DealSearchProjection> query = criteriaBuilder.createQuery(DealSearchProjection.class);
+        Root<Deal> root = query.from(Deal.class);
+
+        Join<Deal, DealType> type = root.join("type", JoinType.LEFT);
+        Join<Deal, DealStatus> status = root.join("status", JoinType.LEFT);
+        Join<Deal, DealSum> mainSum = root.join("sums", JoinType.LEFT);
+        mainSum.on(
+                criteriaBuilder.isTrue(mainSum.get("isMain")),
+                criteriaBuilder.isTrue(mainSum.get("isActive"))
+        );
+
+        query.select(criteriaBuilder.construct(
+                DealSearchProjection.class,
+                root.get("id"),
+                root.get("description"),
+                root.get("agreementNumber"),
+                root.get("agreementDate"),
+                root.get("agreementStartDate"),
+                root.get("availabilityDate"),
+                root.get("closeDt"),
+                root.get("typeId"),
+                type.get("name"),
+                root.get("statusId"),
+                status.get("name"),
+                mainSum.get("sum"),
+                mainSum.get("currencyId"),
+                criteriaBuilder.function(CONTRACTORS_JSON_FUNCTION, String.class, root.get("id"))
+        ));
+
+        Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        query.orderBy(orderBy(criteriaBuilder, root, sortField, descending));
+
+        return entityManager.createQuery(query)
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Optional<DealSearchProjection> findAggregateById(UUID id) {
+
+        Specification<Deal> activeById = (root, query, criteriaBuilder) -> criteriaBuilder.and(
+                criteriaBuilder.equal(root.get("id"), id),
+                criteriaBuilder.isTrue(root.get("isActive"))
+        );
+
+        return findProjections(activeById, DealSortField.ID, false, 0, 1).stream().findFirst();
+    }
+
+    @Override
+    public List<DealSearchProjection> findAggregatesByIds(Collection<UUID> ids) {
+
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Specification<Deal> activeByIds = (root, query, criteriaBuilder) -> criteriaBuilder.and(
+                root.get("id").in(ids),
+                criteriaBuilder.isTrue(root.get("isActive"))
+        );
+
+        return findProjections(activeByIds, DealSortField.ID, false, 0, ids.size());
+    }
+
+    @Override
+    public List<Deal> findPage(DealSearchQuery query, long offset, int limit) {
+        return query.bind(entityManager.createQuery(query.getSelectJpql(), Deal.class))
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public long count(DealSearchQuery query) {
+        return query.bind(entityManager.createQuery(query.getCountJpql(), Long.class))
+                .getSingleResult();
+    }
+
+    @Override
+    public long estimateCount(DealSearchQuery query) {
+        String plan = DealSearchExplainInspector.explain(() -> query.bind(entityManager.createQuery(query.getEstimateJpql(), String.class))
+                .setFlushMode(FlushModeType.COMMIT)
+                .getSingleResult());
+        return planRows(plan);
+    }
+
+    /**
+     * Ожидаемое число строк корневого узла плана из вывода EXPLAIN (FORMAT JSON)
+     */
+    private long planRows(String plan) {
+        try {
+            return objectMapper.readTree(plan).path(0).path("Plan").path("Plan Rows").asLong();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unexpected EXPLAIN output", e);
+        }
+    }
+
+    @Override
+    public List<DealFacetProjection> findFacets(Specification<Deal> specification) {
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<DealFacetProjection> query = criteriaBuilder.createQuery(DealFacetProjection.class);
+        Root<Deal> root = query.from(Deal.class);
+
+        Join<Deal, DealSum> mainSum = root.join("sums", JoinType.LEFT);
+        mainSum.on(
+                criteriaBuilder.isTrue(mainSum.get("isMain")),
+                criteriaBuilder.isTrue(mainSum.get("isActive"))
+        );
+
+        query.select(criteriaBuilder.construct(
+                DealFacetProjection.class,
+                root.get("statusId"),
+                root.get("typeId"),
+                mainSum.get("currencyId"),
+                criteriaBuilder.count(root)
+        ));
+
+        Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        query.groupBy(root.get("statusId"), root.get("typeId"), mainSum.get("currencyId"));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public Stream<UUID> streamIds(Specification<Deal> specification, DealSortField sortField,
+                                  boolean descending, int fetchSize) {
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UUID> query = criteriaBuilder.createQuery(UUID.class);
+        Root<Deal> root = query.from(Deal.class);
+
+        query.select(root.get("id"));
+
+        Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        query.orderBy(orderBy(criteriaBuilder, root, sortField, descending));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    /**
+     * Сортировка по полю и по id как дополнительному ключу для стабильного порядка.
+     * RELEVANCE не имеет атрибута сущности, такие результаты упорядочиваются только по id.
+     */
+    private List<Order> orderBy(CriteriaBuilder criteriaBuilder, Root<Deal> root,
+                                DealSortField sortField, boolean descending) {
+        List<Order> orders = new ArrayList<>();
+        if (sortField != DealSortField.ID && sortField != DealSortField.RELEVANCE) {
+            orders.add(descending
+                    ? criteriaBuilder.desc(root.get(sortField.getAttribute()))
+                    : criteriaBuilder.asc(root.get(sortField.getAttribute())));
+        }
+        orders.add(descending ? criteriaBuilder.desc(root.get("id")) : criteriaBuilder.asc(root.get("id")));
+        return orders;
+    }
+
+}
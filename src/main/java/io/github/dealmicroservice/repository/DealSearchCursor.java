@@ -0,0 +1,80 @@
+package io.github.dealmicroservice.repository;
+
+import io.github.dealmicroservice.exception.InvalidSearchCursorException;
+import io.github.dealmicroservice.model.entity.Deal;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Позиция keyset-пагинации: значение поля сортировки и id последней отданной сделки.
+ * Клиенту передается в виде непрозрачной строки (base64url).
+ */
+@Getter
+@AllArgsConstructor
+public class DealSearchCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final DealSortField sortField;
+
+    private final boolean descending;
+
+    private final UUID lastId;
+
+    private final String lastValue;
+
+    /**
+     * Создает курсор, указывающий на позицию сразу после переданной сделки
+     */
+    public static DealSearchCursor after(Deal deal, DealSortField sortField, boolean descending) {
+        return new DealSearchCursor(sortField, descending, deal.getId(), sortField.format(deal));
+    }
+
+    /**
+     * Кодирует курсор в строку вида sortBy|direction|id[|value].
+     * Значение идет последним, поэтому может содержать разделитель.
+     */
+    public String encode() {
+        StringBuilder raw = new StringBuilder()
+                .append(sortField.getSortBy()).append(SEPARATOR)
+                .append(descending ? "DESC" : "ASC").append(SEPARATOR)
+                .append(lastId);
+
+        if (lastValue != null) {
+            raw.append(SEPARATOR).append(lastValue);
+        }
+
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает строку курсора, полученную от клиента
+     * @throws InvalidSearchCursorException если курсор поврежден
+     */
+    public static DealSearchCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, 4);
+
+            if (parts.length < 3) {
+                throw new InvalidSearchCursorException("Некорректный курсор поиска");
+            }
+
+            DealSortField sortField = DealSortField.of(parts[0]);
+            String lastValue = parts.length == 4 ? parts[3] : null;
+
+            sortField.parse(lastValue);
+
+            return new DealSearchCursor(sortField, "DESC".equals(parts[1]), UUID.fromString(parts[2]), lastValue);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidSearchCursorException("Некорректный курсор поиска");
+        }
+    }
+
+}
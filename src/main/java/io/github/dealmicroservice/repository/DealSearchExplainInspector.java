@@ -0,0 +1,42 @@
+package io.github.dealmicroservice.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Превращает запрос, выполняемый внутри explain, в EXPLAIN (FORMAT JSON) того же SQL.
+ * Так оценка количества найденных сделок берется из плана ровно того SQL, который Hibernate строит
+ * по скомпилированному JPQL, а не из отдельной ручной копии условий поиска.
+ * Переписываются только SELECT: EXPLAIN без ANALYZE не выполняет запрос, поэтому случайно попавший
+ * в область сброс изменений был бы молча потерян.
+ * Регистрируется как hibernate.session_factory.statement_inspector (HibernateQueryConfig).
+ */
+public class DealSearchExplainInspector implements StatementInspector {
+
+    static final String EXPLAIN = "EXPLAIN (FORMAT JSON) ";
+
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    /**
+     * Выполняет действие, заменяя его SELECT на EXPLAIN; результатом запроса будет JSON плана
+     */
+    static <T> T explain(Supplier<T> action) {
+        ACTIVE.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            ACTIVE.remove();
+        }
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (ACTIVE.get() == null || !sql.stripLeading().toLowerCase(Locale.ROOT).startsWith("select")) {
+            return sql;
+        }
+        return EXPLAIN + sql;
+    }
+
+}
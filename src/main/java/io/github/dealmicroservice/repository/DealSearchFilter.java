@@ -0,0 +1,66 @@
+package io.github.dealmicroservice.repository;
+
+import io.github.dealmicroservice.model.dto.DealSearchDTO;
+import lombok.RequiredArgsConstructor;
+
+import java.util.function.Predicate;
+
+/**
+ * Фильтры поиска сделок, для которых DealSpecification добавляет условие в запрос.
+ * Набор заданных фильтров кодируется битовой маской ("форма" запроса) для метрик поиска.
+ * Бит фильтра равен его порядковому номеру, поэтому новые фильтры добавляются только в конец.
+ */
+@RequiredArgsConstructor
+public enum DealSearchFilter {
+
+    DEAL_ID(request -> request.getDealId() != null),
+    DESCRIPTION(request -> hasText(request.getDescription())),
+    AGREEMENT_NUMBER(request -> hasText(request.getAgreementNumber())),
+    AGREEMENT_DATE(request -> request.getAgreementDateFrom() != null || request.getAgreementDateTo() != null),
+    AVAILABILITY_DATE(request -> request.getAvailabilityDateFrom() != null || request.getAvailabilityDateTo() != null),
+    TYPE(request -> request.getType() != null && !request.getType().isEmpty()),
+    STATUS(request -> request.getStatus() != null && !request.getStatus().isEmpty()),
+    CLOSE_DT(request -> request.getCloseDtFrom() != null || request.getCloseDtTo() != null),
+    BORROWER(request -> hasText(request.getBorrowerSearch())),
+    WARRANTY(request -> hasText(request.getWarrantySearch())),
+    SUM(request -> request.getSum() != null),
+    DESCRIPTION_QUERY(request -> hasText(request.getDescriptionQuery()));
+
+    private final Predicate<DealSearchDTO> condition;
+
+    /**
+     * Задан ли фильтр в запросе (т.е. добавит ли спецификация соответствующее условие)
+     */
+    public boolean isPresent(DealSearchDTO request) {
+        return condition.test(request);
+    }
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Битовая маска заданных в запросе фильтров
+     */
+    public static int shape(DealSearchDTO request) {
+        int shape = 0;
+        for (DealSearchFilter filter : values()) {
+            if (filter.isPresent(request)) {
+                shape |= filter.bit();
+            }
+        }
+        return shape;
+    }
+
+    /**
+     * Маска фильтров в компактном виде для тега метрики, например "120" = BORROWER + TYPE
+     */
+    public static String shapeTag(DealSearchDTO request) {
+        return Integer.toHexString(shape(request));
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+
+}
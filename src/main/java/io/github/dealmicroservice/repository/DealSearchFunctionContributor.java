@@ -0,0 +1,45 @@
+package io.github.dealmicroservice.repository;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicTypeRegistry;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Функции HQL/Criteria для полнотекстового поиска по описанию сделки (PostgreSQL).
+ * Первый аргумент - колонка описания, из которой строится tsvector тем же выражением, что и GIN-индексы
+ * changelog 005_create_deal_description_fts (иначе индекс не будет использован),
+ * второй - строка запроса в синтаксисе websearch_to_tsquery (слова, "фразы", or, -исключение).
+ * Регистрируется через META-INF/services/org.hibernate.boot.model.FunctionContributor.
+ */
+public class DealSearchFunctionContributor implements FunctionContributor {
+
+    /**
+     * Конфигурация текстового поиска, с которой построены GIN-индексы описания в БД
+     */
+    static final String TEXT_SEARCH_CONFIG = "russian";
+
+    /**
+     * fts_match(description, query) - совпадение tsvector описания с запросом, может использовать GIN-индекс
+     */
+    static final String MATCH = "fts_match";
+
+    /**
+     * fts_rank(description, query) - релевантность совпадения для сортировки
+     */
+    static final String RANK = "fts_rank";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+
+        BasicTypeRegistry types = functionContributions.getTypeConfiguration().getBasicTypeRegistry();
+        String vector = "to_tsvector('" + TEXT_SEARCH_CONFIG + "', coalesce(?1, ''))";
+        String query = "websearch_to_tsquery('" + TEXT_SEARCH_CONFIG + "', ?2)";
+
+        functionContributions.getFunctionRegistry().registerPattern(
+                MATCH, "(" + vector + " @@ " + query + ")", types.resolve(StandardBasicTypes.BOOLEAN));
+        functionContributions.getFunctionRegistry().registerPattern(
+                RANK, "ts_rank(" + vector + ", " + query + ")", types.resolve(StandardBasicTypes.DOUBLE));
+    }
+
+}
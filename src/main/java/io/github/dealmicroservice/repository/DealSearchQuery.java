@@ -0,0 +1,42 @@
+package io.github.dealmicroservice.repository;
+
+import jakarta.persistence.Query;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Скомпилированный поиск сделок: JPQL-шаблон формы запроса и значения его именованных параметров.
+ * Шаблоны создаются DealSearchQueryCompiler и переиспользуются всеми запросами одной формы.
+ */
+@Getter
+@AllArgsConstructor
+public class DealSearchQuery {
+
+    /**
+     * Выборка сделок в порядке сортировки; тип и статус не присоединяются, а берутся из кэша второго уровня
+     */
+    private final String selectJpql;
+
+    /**
+     * Подсчет сделок по тем же условиям
+     */
+    private final String countJpql;
+
+    /**
+     * Выборка идентификаторов сделок по тем же условиям для оценки количества через EXPLAIN ее SQL
+     */
+    private final String estimateJpql;
+
+    private final Map<String, Object> parameters;
+
+    /**
+     * Привязывает значения фильтров к параметрам запроса
+     */
+    public <Q extends Query> Q bind(Q query) {
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+
+}
@@ -0,0 +1,240 @@
+package io.github.dealmicroservice.repository;
+
+import io.github.dealmicroservice.model.dto.DealSearchDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.UtilityClass;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Компилирует фильтр поиска сделок в параметризованный JPQL.
+ * Условия те же, что в DealSpecification.buildSpecification, но значения фильтров
+ * (включая LIKE-шаблоны) передаются параметрами, а не встраиваются в текст запроса.
+ * Текст запроса зависит только от битовой маски заданных условий и сортировки,
+ * поэтому шаблон строится один раз на форму запроса, а одинаковый SQL позволяет
+ * Hibernate брать план из кэша планов запросов, а pgjdbc - переиспользовать
+ * серверные prepared statements.
+ * Для оценки количества найденных сделок шаблон также содержит JPQL выборки идентификаторов по тем же условиям:
+ * его SQL выполняется через EXPLAIN (DealSearchExplainInspector).
+ */
+@UtilityClass
+public final class DealSearchQueryCompiler {
+
+    private static final Map<String, Template> TEMPLATES = new ConcurrentHashMap<>();
+
+    /**
+     * Условия поиска. Бит условия равен его порядковому номеру.
+     * В отличие от DealSearchFilter границы диапазонов и части фильтра по сумме - отдельные условия,
+     * так как от них зависит текст запроса.
+     */
+    @RequiredArgsConstructor
+    enum Clause {
+
+        DEAL_ID("dealId", DealSearchDTO::getDealId),
+        DESCRIPTION("description", request -> hasText(request.getDescription()) ? request.getDescription() : null),
+        AGREEMENT_NUMBER("agreementNumber", request -> containsPattern(request.getAgreementNumber())),
+        AGREEMENT_DATE_FROM("agreementDateFrom", DealSearchDTO::getAgreementDateFrom),
+        AGREEMENT_DATE_TO("agreementDateTo", DealSearchDTO::getAgreementDateTo),
+        AVAILABILITY_DATE_FROM("availabilityDateFrom", DealSearchDTO::getAvailabilityDateFrom),
+        AVAILABILITY_DATE_TO("availabilityDateTo", DealSearchDTO::getAvailabilityDateTo),
+        TYPE("type", request -> request.getType() != null && !request.getType().isEmpty() ? request.getType() : null),
+        STATUS("status", request -> request.getStatus() != null && !request.getStatus().isEmpty() ? request.getStatus() : null),
+        CLOSE_DT_FROM("closeDtFrom", DealSearchDTO::getCloseDtFrom),
+        CLOSE_DT_TO("closeDtTo", DealSearchDTO::getCloseDtTo),
+        BORROWER("borrower", request -> containsPattern(request.getBorrowerSearch())),
+        WARRANTY("warranty", request -> containsPattern(request.getWarrantySearch())),
+        SUM(null, request -> request.getSum() != null ? Boolean.TRUE : null),
+        SUM_VALUE("sumValue", request -> request.getSum() != null ? request.getSum().getValue() : null),
+        SUM_CURRENCY("sumCurrency", request -> request.getSum() != null && hasText(request.getSum().getCurrency())
+                ? request.getSum().getCurrency() : null),
+        DESCRIPTION_QUERY("descriptionQuery", request -> hasText(request.getDescriptionQuery()) ? request.getDescriptionQuery().trim() : null);
+
+        /**
+         * Имя параметра запроса (null, если условие не имеет параметра)
+         */
+        private final String parameter;
+
+        /**
+         * Значение параметра (null, если условие не задано)
+         */
+        private final Function<DealSearchDTO, Object> value;
+
+        long bit() {
+            return 1L << ordinal();
+        }
+
+        boolean in(long mask) {
+            return (mask & bit()) != 0;
+        }
+
+    }
+
+    /**
+     * Компилирует фильтр в запрос: берет из кэша (или строит) шаблон формы запроса и собирает значения параметров
+     * @param request фильтр поиска
+     * @param sortField поле сортировки (id используется как дополнительный ключ сортировки);
+     *                  RELEVANCE - по убыванию релевантности description_query независимо от направления
+     * @param descending признак сортировки по убыванию
+     */
+    public static DealSearchQuery compile(DealSearchDTO request, DealSortField sortField, boolean descending) {
+
+        long mask = 0;
+        Map<String, Object> parameters = new LinkedHashMap<>();
+
+        for (Clause clause : Clause.values()) {
+            Object value = clause.value.apply(request);
+            if (value != null) {
+                mask |= clause.bit();
+                if (clause.parameter != null) {
+                    parameters.put(clause.parameter, value);
+                }
+            }
+        }
+
+        Template template = template(mask, sortField, descending);
+
+        return new DealSearchQuery(template.selectJpql, template.countJpql, template.estimateJpql, parameters);
+    }
+
+    static Template template(long mask, DealSortField sortField, boolean descending) {
+        String key = Long.toHexString(mask) + ":" + sortField.name() + ":" + (descending ? "DESC" : "ASC");
+        return TEMPLATES.computeIfAbsent(key, ignored -> render(mask, sortField, descending));
+    }
+
+    private static Template render(long mask, DealSortField sortField, boolean descending) {
+
+        StringJoiner where = new StringJoiner(" and ", " where ", "");
+        where.add("d.isActive = true");
+
+        if (Clause.DEAL_ID.in(mask)) {
+            where.add("d.id = :dealId");
+        }
+
+        if (Clause.DESCRIPTION.in(mask)) {
+            where.add("d.description = :description");
+        }
+
+        if (Clause.DESCRIPTION_QUERY.in(mask)) {
+            where.add(DealSearchFunctionContributor.MATCH + "(d.description, :descriptionQuery) = true");
+        }
+
+        if (Clause.AGREEMENT_NUMBER.in(mask)) {
+            where.add(like("d.agreementNumber", "agreementNumber"));
+        }
+
+        if (Clause.AGREEMENT_DATE_FROM.in(mask)) {
+            where.add("d.agreementDate >= :agreementDateFrom");
+        }
+        if (Clause.AGREEMENT_DATE_TO.in(mask)) {
+            where.add("d.agreementDate <= :agreementDateTo");
+        }
+
+        if (Clause.AVAILABILITY_DATE_FROM.in(mask)) {
+            where.add("d.availabilityDate >= :availabilityDateFrom");
+        }
+        if (Clause.AVAILABILITY_DATE_TO.in(mask)) {
+            where.add("d.availabilityDate <= :availabilityDateTo");
+        }
+
+        if (Clause.TYPE.in(mask)) {
+            where.add("d.typeId in :type");
+        }
+
+        if (Clause.STATUS.in(mask)) {
+            where.add("d.statusId in :status");
+        }
+
+        if (Clause.CLOSE_DT_FROM.in(mask)) {
+            where.add("d.closeDt >= :closeDtFrom");
+        }
+        if (Clause.CLOSE_DT_TO.in(mask)) {
+            where.add("d.closeDt <= :closeDtTo");
+        }
+
+        if (Clause.BORROWER.in(mask)) {
+            where.add(contractorExists("BORROWER", "borrower"));
+        }
+
+        if (Clause.WARRANTY.in(mask)) {
+            where.add(contractorExists("WARRANTY", "warranty"));
+        }
+
+        if (Clause.SUM.in(mask)) {
+            StringBuilder sum = new StringBuilder("exists (select 1 from DealSum s where s.dealId = d.id")
+                    .append(" and s.isActive = true and s.isMain = true");
+            if (Clause.SUM_VALUE.in(mask)) {
+                sum.append(" and s.sum = :sumValue");
+            }
+            if (Clause.SUM_CURRENCY.in(mask)) {
+                sum.append(" and s.currencyId = :sumCurrency");
+            }
+            where.add(sum.append(")").toString());
+        }
+
+        String direction = descending ? " desc" : " asc";
+        String orderBy;
+        if (sortField == DealSortField.RELEVANCE) {
+            orderBy = Clause.DESCRIPTION_QUERY.in(mask)
+                    ? " order by " + DealSearchFunctionContributor.RANK + "(d.description, :descriptionQuery) desc, d.id"
+                    : " order by d.id";
+        } else if (sortField == DealSortField.ID) {
+            orderBy = " order by d.id" + direction;
+        } else {
+            orderBy = " order by d." + sortField.getAttribute() + direction + ", d.id" + direction;
+        }
+
+        return new Template(
+                "select d from Deal d" + where + orderBy,
+                "select count(d) from Deal d" + where,
+                "select cast(d.id as String) from Deal d" + where
+        );
+    }
+
+    /**
+     * Подзапрос наличия у сделки активного контрагента с ролью указанной категории,
+     * у которого contractor_id, имя или ИНН содержат искомую строку
+     */
+    private static String contractorExists(String category, String parameter) {
+        String contractor = parameter + "Contractor";
+        String link = parameter + "Link";
+        String role = parameter + "Role";
+        return "exists (select 1 from DealContractor " + contractor
+                + " join " + contractor + ".roles " + link + " join " + link + ".role " + role
+                + " where " + contractor + ".dealId = d.id and " + role + ".category = '" + category + "'"
+                + " and " + contractor + ".isActive = true and " + link + ".isActive = true"
+                + " and (" + like(contractor + ".contractorId", parameter)
+                + " or " + like(contractor + ".name", parameter)
+                + " or " + like(contractor + ".inn", parameter) + "))";
+    }
+
+    private static String like(String column, String parameter) {
+        return "lower(" + column + ") like :" + parameter + " escape '" + DealSpecification.LIKE_ESCAPE + "'";
+    }
+
+    private static String containsPattern(String term) {
+        return hasText(term) ? DealSpecification.containsPattern(term) : null;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+
+    /**
+     * Текст запросов одной формы
+     */
+    @RequiredArgsConstructor
+    static final class Template {
+
+        private final String selectJpql;
+
+        private final String countJpql;
+
+        private final String estimateJpql;
+
+    }
+
+}
@@ -0,0 +1,87 @@
+package io.github.dealmicroservice.repository;
+
+import io.github.dealmicroservice.model.entity.DealSearchView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Репозиторий модели чтения deal_search_view.
+ * Методы refresh* пересчитывают строки модели из основных таблиц (changelog 004_create_deal_search_view)
+ * и возвращают количество обновленных строк; пересчет блокирует строки deal пересчитываемых сделок до конца транзакции.
+ * Методы find*After выбирают идентификаторы сделок порциями по возрастанию id для пересчета большого числа строк.
+ * Сверка модели по расписанию выполняется одним экземпляром сервиса под блокировкой в таблице scheduled_lock.
+ */
+@Repository
+public interface DealSearchViewRepository extends JpaRepository<DealSearchView, UUID>, JpaSpecificationExecutor<DealSearchView> {
+
+    @Transactional
+    @Query(value = "SELECT refresh_deal_search_view(ARRAY[CAST(:dealId AS uuid)])", nativeQuery = true)
+    int refreshByDealId(UUID dealId);
+
+    @Transactional
+    @Query(value = "SELECT refresh_deal_search_view(ARRAY(SELECT d.id FROM deal d WHERE d.id IN (:dealIds)))", nativeQuery = true)
+    int refreshByDealIds(Collection<UUID> dealIds);
+
+    @Transactional
+    @Query(value = """
+        SELECT refresh_deal_search_view(ARRAY(
+            SELECT dc.deal_id FROM deal_contractor dc WHERE dc.id = :dealContractorId))
+        """, nativeQuery = true)
+    int refreshByDealContractorId(UUID dealContractorId);
+
+    @Query(value = "SELECT d.id FROM deal d WHERE d.is_active AND d.id > :after ORDER BY d.id LIMIT :limit", nativeQuery = true)
+    List<UUID> findActiveDealIdsAfter(UUID after, int limit);
+
+    @Query(value = "SELECT d.id FROM deal d WHERE d.type_id = :typeId AND d.id > :after ORDER BY d.id LIMIT :limit", nativeQuery = true)
+    List<UUID> findDealIdsByTypeIdAfter(String typeId, UUID after, int limit);
+
+    @Query(value = """
+        SELECT DISTINCT dc.deal_id FROM deal_contractor dc
+        WHERE dc.contractor_id = :contractorId AND dc.deal_id > :after
+        ORDER BY dc.deal_id LIMIT :limit
+        """, nativeQuery = true)
+    List<UUID> findDealIdsByContractorIdAfter(String contractorId, UUID after, int limit);
+
+    /**
+     * Берет блокировку сверки модели на ttlSeconds секунд, если она свободна или истекла
+     *
+     * @return 1, если блокировка получена
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+        INSERT INTO scheduled_lock (name, locked_until, locked_at, locked_by)
+        VALUES ('deal_search_view_rebuild', now() + CAST(:ttlSeconds AS integer) * interval '1 second', now(), :lockedBy)
+        ON CONFLICT (name) DO UPDATE
+        SET locked_until = EXCLUDED.locked_until,
+            locked_at = EXCLUDED.locked_at,
+            locked_by = EXCLUDED.locked_by
+        WHERE scheduled_lock.locked_until <= now()
+        """, nativeQuery = true)
+    int tryLockRebuild(String lockedBy, long ttlSeconds);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+        UPDATE scheduled_lock SET locked_until = now()
+        WHERE name = 'deal_search_view_rebuild' AND locked_by = :lockedBy
+        """, nativeQuery = true)
+    int unlockRebuild(String lockedBy);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+        DELETE FROM deal_search_view v
+        WHERE NOT EXISTS (SELECT 1 FROM deal d WHERE d.id = v.deal_id AND d.is_active)
+        """, nativeQuery = true)
+    int deleteInactive();
+
+}
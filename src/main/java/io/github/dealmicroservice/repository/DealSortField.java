@@ -0,0 +1,66 @@
+package io.github.dealmicroservice.repository;
+
+import io.github.dealmicroservice.model.entity.Deal;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Поля сделки, по которым допускается сортировка результатов поиска.
+ * Связывает значение sortBy из запроса с атрибутом сущности Deal
+ * и умеет сериализовать значение поля для курсора keyset-пагинации.
+ * RELEVANCE - сортировка по релевантности полнотекстового поиска description_query: у нее нет атрибута
+ * сущности, ее выполняет только DealSearchQueryCompiler, остальные запросы упорядочивают такие результаты по id.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum DealSortField {
+
+    ID("id", "id", Deal::getId, UUID::fromString),
+    DESCRIPTION("description", "description", Deal::getDescription, value -> value),
+    AGREEMENT_NUMBER("agreementNumber", "agreementNumber", Deal::getAgreementNumber, value -> value),
+    AGREEMENT_DATE("agreementDate", "agreementDate", Deal::getAgreementDate, LocalDate::parse),
+    AVAILABILITY_DATE("availabilityDate", "availabilityDate", Deal::getAvailabilityDate, LocalDate::parse),
+    TYPE("type", "typeId", Deal::getTypeId, value -> value),
+    STATUS("status", "statusId", Deal::getStatusId, value -> value),
+    CLOSE_DT("closeDt", "closeDt", Deal::getCloseDt, LocalDateTime::parse),
+    RELEVANCE("relevance", null, Deal::getId, UUID::fromString);
+
+    private final String sortBy;
+    private final String attribute;
+    private final Function<Deal, Object> extractor;
+    private final Function<String, Object> parser;
+
+    /**
+     * Возвращает поле сортировки по значению sortBy из запроса
+     * @param sortBy имя поля из DealSearchDTO
+     * @throws IllegalArgumentException если поле не поддерживается
+     */
+    public static DealSortField of(String sortBy) {
+        return Arrays.stream(values())
+                .filter(field -> field.sortBy.equals(sortBy))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported sort field: " + sortBy));
+    }
+
+    /**
+     * Значение поля сделки в строковом виде (null, если поле не заполнено)
+     */
+    public String format(Deal deal) {
+        Object value = extractor.apply(deal);
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * Восстанавливает типизированное значение поля из строки курсора
+     */
+    public Object parse(String value) {
+        return value != null ? parser.apply(value) : null;
+    }
+
+}
@@ -3,9 +3,13 @@ package io.github.dealmicroservice.repository;
 import io.github.dealmicroservice.model.dto.DealSearchDTO;
 import io.github.dealmicroservice.model.entity.Deal;
 import io.github.dealmicroservice.model.entity.DealContractor;
+import io.github.dealmicroservice.model.entity.DealSearchView;
 import io.github.dealmicroservice.model.entity.DealSum;
 import io.github.dealmicroservice.model.entity.ContractorToRole;
 import io.github.dealmicroservice.model.entity.ContractorRole;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
@@ -15,29 +19,34 @@ import org.springframework.data.jpa.domain.Specification;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
 
 @UtilityClass
 public final class DealSpecification {
 
+    static final char LIKE_ESCAPE = '\\';
+
     public static Specification<Deal> buildSpecification(DealSearchDTO request) {
         return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
 
             predicates.add(criteriaBuilder.isTrue(root.get("isActive")));
 
-            if (request.getDealId() != null) {
+            if (DealSearchFilter.DEAL_ID.isPresent(request)) {
                 predicates.add(criteriaBuilder.equal(root.get("id"), request.getDealId()));
             }
 
-            if (request.getDescription() != null && !request.getDescription().trim().isEmpty()) {
+            if (DealSearchFilter.DESCRIPTION.isPresent(request)) {
                 predicates.add(criteriaBuilder.equal(root.get("description"), request.getDescription()));
             }
 
-            if (request.getAgreementNumber() != null && !request.getAgreementNumber().trim().isEmpty()) {
-                predicates.add(criteriaBuilder.like(
-                        criteriaBuilder.lower(root.get("agreementNumber")),
-                        "%" + request.getAgreementNumber().toLowerCase() + "%"
-                ));
+            if (DealSearchFilter.DESCRIPTION_QUERY.isPresent(request)) {
+                predicates.add(matchesDescriptionQuery(criteriaBuilder, root.get("description"), request.getDescriptionQuery()));
+            }
+
+            if (DealSearchFilter.AGREEMENT_NUMBER.isPresent(request)) {
+                predicates.add(containsIgnoreCase(criteriaBuilder, root.get("agreementNumber"), request.getAgreementNumber()));
             }
 
             if (request.getAgreementDateFrom() != null) {
@@ -54,11 +63,11 @@ public final class DealSpecification {
                 predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("availabilityDate"), request.getAvailabilityDateTo()));
             }
 
-            if (request.getType() != null && !request.getType().isEmpty()) {
+            if (DealSearchFilter.TYPE.isPresent(request)) {
                 predicates.add(root.get("typeId").in(request.getType()));
             }
 
-            if (request.getStatus() != null && !request.getStatus().isEmpty()) {
+            if (DealSearchFilter.STATUS.isPresent(request)) {
                 predicates.add(root.get("statusId").in(request.getStatus()));
             }
 
@@ -69,61 +78,17 @@ public final class DealSpecification {
                 predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("closeDt"), request.getCloseDtTo()));
             }
 
-            if (request.getBorrowerSearch() != null && !request.getBorrowerSearch().trim().isEmpty()) {
-                Subquery<Long> borrowerSubquery = query.subquery(Long.class);
-                Root<DealContractor> contractorRoot = borrowerSubquery.from(DealContractor.class);
-                Join<DealContractor, ContractorToRole> roleJoin = contractorRoot.join("roles");
-                Join<ContractorToRole, ContractorRole> contractorRoleJoin = roleJoin.join("role");
-
-                borrowerSubquery.select(criteriaBuilder.literal(1L))
-                        .where(
-                                criteriaBuilder.and(
-                                        criteriaBuilder.equal(contractorRoot.get("dealId"), root.get("id")),
-                                        criteriaBuilder.equal(contractorRoleJoin.get("category"), "BORROWER"),
-                                        criteriaBuilder.isTrue(contractorRoot.get("isActive")),
-                                        criteriaBuilder.isTrue(roleJoin.get("isActive")),
-                                        criteriaBuilder.or(
-                                                criteriaBuilder.like(criteriaBuilder.lower(contractorRoot.get("contractorId")),
-                                                        "%" + request.getBorrowerSearch().toLowerCase() + "%"),
-                                                criteriaBuilder.like(criteriaBuilder.lower(contractorRoot.get("name")),
-                                                        "%" + request.getBorrowerSearch().toLowerCase() + "%"),
-                                                criteriaBuilder.like(criteriaBuilder.lower(contractorRoot.get("inn")),
-                                                        "%" + request.getBorrowerSearch().toLowerCase() + "%")
-                                        )
-                                )
-                        );
-
-                predicates.add(criteriaBuilder.exists(borrowerSubquery));
-            }
-
-            if (request.getWarrantySearch() != null && !request.getWarrantySearch().trim().isEmpty()) {
-                Subquery<Long> warrantySubquery = query.subquery(Long.class);
-                Root<DealContractor> contractorRoot = warrantySubquery.from(DealContractor.class);
-                Join<DealContractor, ContractorToRole> roleJoin = contractorRoot.join("roles");
-                Join<ContractorToRole, ContractorRole> contractorRoleJoin = roleJoin.join("role");
-
-                warrantySubquery.select(criteriaBuilder.literal(1L))
-                        .where(
-                                criteriaBuilder.and(
-                                        criteriaBuilder.equal(contractorRoot.get("dealId"), root.get("id")),
-                                        criteriaBuilder.equal(contractorRoleJoin.get("category"), "WARRANTY"),
-                                        criteriaBuilder.isTrue(contractorRoot.get("isActive")),
-                                        criteriaBuilder.isTrue(roleJoin.get("isActive")),
-                                        criteriaBuilder.or(
-                                                criteriaBuilder.like(criteriaBuilder.lower(contractorRoot.get("contractorId")),
-                                                        "%" + request.getWarrantySearch().toLowerCase() + "%"),
-                                                criteriaBuilder.like(criteriaBuilder.lower(contractorRoot.get("name")),
-                                                        "%" + request.getWarrantySearch().toLowerCase() + "%"),
-                                                criteriaBuilder.like(criteriaBuilder.lower(contractorRoot.get("inn")),
-                                                        "%" + request.getWarrantySearch().toLowerCase() + "%")
-                                        )
-                                )
-                        );
-
-                predicates.add(criteriaBuilder.exists(warrantySubquery));
-            }
-
-            if (request.getSum() != null) {
+            if (DealSearchFilter.BORROWER.isPresent(request)) {
+                predicates.add(criteriaBuilder.exists(
+                        contractorSearchSubquery(query, criteriaBuilder, root, "BORROWER", request.getBorrowerSearch())));
+            }
+
+            if (DealSearchFilter.WARRANTY.isPresent(request)) {
+                predicates.add(criteriaBuilder.exists(
+                        contractorSearchSubquery(query, criteriaBuilder, root, "WARRANTY", request.getWarrantySearch())));
+            }
+
+            if (DealSearchFilter.SUM.isPresent(request)) {
                 Subquery<Long> sumSubquery = query.subquery(Long.class);
                 Root<DealSum> sumRoot = sumSubquery.from(DealSum.class);
 
@@ -150,4 +115,189 @@ public final class DealSpecification {
         };
     }
 
+    /**
+     * Условия поиска по модели чтения deal_search_view: те же фильтры, что и в buildSpecification,
+     * но без подзапросов - основная сумма и строки поиска по заемщику и поручителю уже лежат в строке модели.
+     */
+    public static Specification<DealSearchView> buildSearchViewSpecification(DealSearchDTO request) {
+        return (root, query, criteriaBuilder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (DealSearchFilter.DEAL_ID.isPresent(request)) {
+                predicates.add(criteriaBuilder.equal(root.get("id"), request.getDealId()));
+            }
+
+            if (DealSearchFilter.DESCRIPTION.isPresent(request)) {
+                predicates.add(criteriaBuilder.equal(root.get("description"), request.getDescription()));
+            }
+
+            if (DealSearchFilter.DESCRIPTION_QUERY.isPresent(request)) {
+                predicates.add(matchesDescriptionQuery(criteriaBuilder, root.get("description"), request.getDescriptionQuery()));
+            }
+
+            if (DealSearchFilter.AGREEMENT_NUMBER.isPresent(request)) {
+                predicates.add(containsIgnoreCase(criteriaBuilder, root.get("agreementNumber"), request.getAgreementNumber()));
+            }
+
+            if (request.getAgreementDateFrom() != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("agreementDate"), request.getAgreementDateFrom()));
+            }
+            if (request.getAgreementDateTo() != null) {
+                predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("agreementDate"), request.getAgreementDateTo()));
+            }
+
+            if (request.getAvailabilityDateFrom() != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("availabilityDate"), request.getAvailabilityDateFrom()));
+            }
+            if (request.getAvailabilityDateTo() != null) {
+                predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("availabilityDate"), request.getAvailabilityDateTo()));
+            }
+
+            if (DealSearchFilter.TYPE.isPresent(request)) {
+                predicates.add(root.get("typeId").in(request.getType()));
+            }
+
+            if (DealSearchFilter.STATUS.isPresent(request)) {
+                predicates.add(root.get("statusId").in(request.getStatus()));
+            }
+
+            if (request.getCloseDtFrom() != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("closeDt"), request.getCloseDtFrom()));
+            }
+            if (request.getCloseDtTo() != null) {
+                predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("closeDt"), request.getCloseDtTo()));
+            }
+
+            if (DealSearchFilter.BORROWER.isPresent(request)) {
+                predicates.add(contains(criteriaBuilder, root.get("borrowerSearch"), request.getBorrowerSearch()));
+            }
+
+            if (DealSearchFilter.WARRANTY.isPresent(request)) {
+                predicates.add(contains(criteriaBuilder, root.get("warrantySearch"), request.getWarrantySearch()));
+            }
+
+            if (DealSearchFilter.SUM.isPresent(request)) {
+                predicates.add(criteriaBuilder.isNotNull(root.get("sum")));
+
+                if (request.getSum().getValue() != null) {
+                    predicates.add(criteriaBuilder.equal(root.get("sum"), request.getSum().getValue()));
+                }
+
+                if (request.getSum().getCurrency() != null && !request.getSum().getCurrency().trim().isEmpty()) {
+                    predicates.add(criteriaBuilder.equal(root.get("currencyId"), request.getSum().getCurrency()));
+                }
+            }
+
+            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Подзапрос наличия у сделки активного контрагента с ролью указанной категории,
+     * у которого contractor_id, имя или ИНН содержат искомую строку
+     */
+    private static Subquery<Long> contractorSearchSubquery(CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder,
+                                                           Root<Deal> root, String category, String search) {
+        Subquery<Long> subquery = query.subquery(Long.class);
+        Root<DealContractor> contractorRoot = subquery.from(DealContractor.class);
+        Join<DealContractor, ContractorToRole> roleJoin = contractorRoot.join("roles");
+        Join<ContractorToRole, ContractorRole> contractorRoleJoin = roleJoin.join("role");
+
+        return subquery.select(criteriaBuilder.literal(1L))
+                .where(
+                        criteriaBuilder.equal(contractorRoot.get("dealId"), root.get("id")),
+                        criteriaBuilder.equal(contractorRoleJoin.get("category"), category),
+                        criteriaBuilder.isTrue(contractorRoot.get("isActive")),
+                        criteriaBuilder.isTrue(roleJoin.get("isActive")),
+                        criteriaBuilder.or(
+                                containsIgnoreCase(criteriaBuilder, contractorRoot.get("contractorId"), search),
+                                containsIgnoreCase(criteriaBuilder, contractorRoot.get("name"), search),
+                                containsIgnoreCase(criteriaBuilder, contractorRoot.get("inn"), search)
+                        )
+                );
+    }
+
+    /**
+     * Полнотекстовое совпадение описания с запросом в синтаксисе websearch_to_tsquery,
+     * выполняется по GIN-индексу выражения tsvector описания
+     */
+    private static Predicate matchesDescriptionQuery(CriteriaBuilder criteriaBuilder, Expression<String> description, String query) {
+        return criteriaBuilder.isTrue(criteriaBuilder.function(
+                DealSearchFunctionContributor.MATCH, Boolean.class, description, criteriaBuilder.literal(query.trim())));
+    }
+
+    /**
+     * Поиск подстроки без учета регистра в виде lower(column) LIKE '%term%'.
+     * Выражение совпадает с триграммными GIN-индексами по lower(...), поэтому PostgreSQL
+     * может использовать их вместо последовательного сканирования.
+     * Символы % и _ из пользовательского ввода экранируются и ищутся буквально.
+     */
+    private static Predicate containsIgnoreCase(CriteriaBuilder criteriaBuilder, Expression<String> column, String term) {
+        return contains(criteriaBuilder, criteriaBuilder.lower(column), term);
+    }
+
+    /**
+     * Поиск подстроки в колонке, которая уже хранится в нижнем регистре
+     */
+    private static Predicate contains(CriteriaBuilder criteriaBuilder, Expression<String> lowerColumn, String term) {
+        return criteriaBuilder.like(lowerColumn, containsPattern(term), LIKE_ESCAPE);
+    }
+
+    /**
+     * LIKE-шаблон поиска подстроки в нижнем регистре с экранированными символами LIKE_ESCAPE, % и _
+     */
+    static String containsPattern(String term) {
+        String escaped = term.trim().toLowerCase(Locale.ROOT)
+                .replace(String.valueOf(LIKE_ESCAPE), String.valueOf(LIKE_ESCAPE) + LIKE_ESCAPE)
+                .replace("%", LIKE_ESCAPE + "%")
+                .replace("_", LIKE_ESCAPE + "_");
+
+        return "%" + escaped + "%";
+    }
+
+    /**
+     * Условие keyset-пагинации: сделки, идущие строго после позиции курсора
+     * при сортировке по (sortField, id) в указанном направлении.
+     * Порядок NULL-значений совпадает с умолчанием PostgreSQL: NULLS LAST для ASC и NULLS FIRST для DESC.
+     */
+    public static Specification<Deal> buildKeysetSpecification(DealSearchCursor cursor) {
+        return (root, query, criteriaBuilder) -> {
+            boolean descending = cursor.isDescending();
+            Expression<UUID> id = root.get("id");
+            Predicate idAfter = descending
+                    ? criteriaBuilder.lessThan(id, cursor.getLastId())
+                    : criteriaBuilder.greaterThan(id, cursor.getLastId());
+
+            if (cursor.getSortField() == DealSortField.ID) {
+                return idAfter;
+            }
+
+            Expression<Comparable<Object>> field = root.get(cursor.getSortField().getAttribute());
+            Object lastValue = cursor.getSortField().parse(cursor.getLastValue());
+
+            if (lastValue == null) {
+                Predicate sameNull = criteriaBuilder.and(criteriaBuilder.isNull(field), idAfter);
+                return descending
+                        ? criteriaBuilder.or(sameNull, criteriaBuilder.isNotNull(field))
+                        : sameNull;
+            }
+
+            Predicate fieldAfter = compare(criteriaBuilder, field, lastValue, descending);
+            Predicate sameValue = criteriaBuilder.and(criteriaBuilder.equal(field, lastValue), idAfter);
+
+            return descending
+                    ? criteriaBuilder.or(fieldAfter, sameValue)
+                    : criteriaBuilder.or(fieldAfter, sameValue, criteriaBuilder.isNull(field));
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Predicate compare(CriteriaBuilder criteriaBuilder, Expression<Comparable<Object>> field,
+                                     Object value, boolean descending) {
+        Comparable<Object> comparable = (Comparable<Object>) value;
+        return descending
+                ? criteriaBuilder.lessThan(field, comparable)
+                : criteriaBuilder.greaterThan(field, comparable);
+    }
+
 }
@@ -0,0 +1,310 @@
+package io.github.dealmicroservice.service;
+
+import io.github.dealmicroservice.config.TwoLevelCacheManager;
+import io.github.dealmicroservice.model.dto.DealDTO;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.data.redis.util.ByteUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Пакетная работа с кэшем сделок "deals" в Redis: чтение нескольких сделок одной командой MGET
+ * и запись промахов одним конвейером (pipeline).
+ * Ключи, формат значений и TTL берутся из конфигурации кэша в dealsRedisCacheManager,
+ * поэтому записи взаимозаменяемы с записями @Cacheable getDealById.
+ * После сохранения сделки ее DTO записывается в кэш сразу после коммита (write-through), без повторной
+ * загрузки при чтении. Запись условная: рядом со значением хранится версия (дата изменения сделки),
+ * и скрипт Redis заменяет значение только более новой версией, поэтому записи, пришедшие
+ * не в порядке коммитов, не возвращают в кэш устаревшую сделку.
+ * Адресное удаление набора сделок (например, всех сделок обновленного контрагента) выполняется
+ * одним конвейером DEL в Redis и одним сообщением об инвалидации локальных кэшей экземпляров.
+ * Ошибки Redis не прерывают запрос: чтение считается промахом, запись пропускается.
+ */
+@Service
+public class DealCacheService {
+
+    public static final String CACHE_NAME = "deals";
+
+    private final Logger log = LogManager.getLogger(DealCacheService.class);
+
+    private static final int EVICT_BATCH_SIZE = 500;
+    private static final String VERSION_KEY_SUFFIX = ":version";
+
+    /**
+     * KEYS[1] - значение, KEYS[2] - версия; ARGV[1] - значение, ARGV[2] - версия, ARGV[3] - TTL в мс (0 - без TTL).
+     * Версия хранится дольше удаления значения, поэтому запоздавшая запись старой версии не пройдет и после evict
+     */
+    private static final byte[] PUT_IF_NEWER_SCRIPT = """
+            local current = redis.call('get', KEYS[2])
+            if current and tonumber(current) >= tonumber(ARGV[2]) then
+                return 0
+            end
+            if tonumber(ARGV[3]) > 0 then
+                redis.call('set', KEYS[1], ARGV[1], 'px', ARGV[3])
+                redis.call('set', KEYS[2], ARGV[2], 'px', ARGV[3])
+            else
+                redis.call('set', KEYS[1], ARGV[1])
+                redis.call('set', KEYS[2], ARGV[2])
+            end
+            return 1
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private final RedisCacheManager cacheManager;
+    private final CacheManager dealsCacheManager;
+    private final StringRedisTemplate redisTemplate;
+
+    public DealCacheService(@Qualifier("dealsRedisCacheManager") RedisCacheManager cacheManager,
+                            CacheManager dealsCacheManager,
+                            StringRedisTemplate redisTemplate) {
+        this.cacheManager = cacheManager;
+        this.dealsCacheManager = dealsCacheManager;
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Читает закэшированные сделки одной командой MGET.
+     * Значение, которое не удалось прочитать (поврежденное или записанное в несовместимом формате),
+     * удаляется из кэша и считается промахом, поэтому сделка загружается из БД
+     *
+     * @param ids идентификаторы сделок без повторов
+     * @return найденные в кэше сделки по идентификатору
+     */
+    public Map<UUID, DealDTO> getAll(List<UUID> ids) {
+
+        Map<UUID, DealDTO> deals = new HashMap<>();
+        if (ids.isEmpty()) {
+            return deals;
+        }
+
+        RedisCacheConfiguration configuration = configuration();
+        byte[][] keys = ids.stream()
+                .map(id -> key(configuration, id))
+                .toArray(byte[][]::new);
+
+        List<byte[]> values;
+        try {
+            values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(keys));
+        } catch (DataAccessException e) {
+            log.warn("Failed to read {} deals from cache, loading from database", ids.size(), e);
+            return deals;
+        }
+
+        List<UUID> unreadable = new ArrayList<>();
+        for (int i = 0; values != null && i < ids.size(); i++) {
+            byte[] value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            try {
+                if (configuration.getValueSerializationPair().read(ByteBuffer.wrap(value)) instanceof DealDTO deal) {
+                    deals.put(ids.get(i), deal);
+                }
+            } catch (SerializationException e) {
+                log.warn("Failed to read deal {} from cache, evicting it: {}", ids.get(i), e.getMessage());
+                unreadable.add(ids.get(i));
+            }
+        }
+
+        if (!unreadable.isEmpty()) {
+            evict(unreadable);
+        }
+
+        return deals;
+    }
+
+    /**
+     * Кладет сделки в кэш одним конвейером команд SET с TTL кэша
+     */
+    public void putAll(Collection<DealDTO> deals) {
+
+        if (deals.isEmpty()) {
+            return;
+        }
+
+        RedisCacheConfiguration configuration = configuration();
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (DealDTO deal : deals) {
+                    Duration ttl = configuration.getTtlFunction().getTimeToLive(deal.getId(), deal);
+                    connection.stringCommands().set(
+                            key(configuration, deal.getId()),
+                            ByteUtils.getBytes(configuration.getValueSerializationPair().write(deal)),
+                            ttl.isZero() || ttl.isNegative() ? Expiration.persistent() : Expiration.from(ttl),
+                            RedisStringCommands.SetOption.upsert()
+                    );
+                }
+                return null;
+            });
+        } catch (DataAccessException e) {
+            log.warn("Failed to put {} deals into cache", deals.size(), e);
+        }
+    }
+
+    /**
+     * Кладет сделку в кэш на обоих уровнях после коммита (write-through), если в Redis нет более новой версии;
+     * остальные экземпляры сбрасывают свою локальную копию и перечитывают ее из Redis.
+     * При ошибке записи сделка удаляется с обоих уровней, чтобы следующее чтение загрузило ее из БД.
+     *
+     * @param deal       DTO сделки в состоянии на момент коммита
+     * @param modifyDate дата изменения сделки, версия записи в кэше
+     */
+    public void put(DealDTO deal, LocalDateTime modifyDate) {
+
+        if (modifyDate == null) {
+            evictAll(List.of(deal.getId()));
+            return;
+        }
+
+        afterCommit(() -> {
+            try {
+                if (putIfNewer(deal, version(modifyDate))) {
+                    putLocal(deal);
+                } else {
+                    log.debug("Deal {} not cached: a newer version is already in cache", deal.getId());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to put deal {} into cache, evicting it", deal.getId(), e);
+                evict(List.of(deal.getId()));
+            }
+        });
+    }
+
+    /**
+     * Удаляет сделки из кэша на обоих уровнях.
+     * Внутри транзакции удаление выполняется после коммита, чтобы параллельное чтение
+     * не вернуло в кэш данные, которые еще не видны другим транзакциям.
+     * Локальные копии сбрасываются и при ошибке Redis.
+     *
+     * @param ids идентификаторы сделок
+     */
+    public void evictAll(Collection<UUID> ids) {
+
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        afterCommit(() -> evict(ids));
+    }
+
+    private void afterCommit(Runnable action) {
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void evict(Collection<UUID> ids) {
+
+        RedisCacheConfiguration configuration = configuration();
+        List<byte[]> keys = ids.stream()
+                .map(id -> key(configuration, id))
+                .toList();
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int from = 0; from < keys.size(); from += EVICT_BATCH_SIZE) {
+                    connection.keyCommands().del(keys.subList(from, Math.min(from + EVICT_BATCH_SIZE, keys.size())).toArray(byte[][]::new));
+                }
+                return null;
+            });
+        } catch (DataAccessException e) {
+            log.warn("Failed to evict {} deals from cache", ids.size(), e);
+        }
+
+        evictLocal(ids);
+
+        log.debug("Evicted {} deals from cache", ids.size());
+    }
+
+    /**
+     * Записывает значение и его версию одним скриптом Redis, если сохраненная версия не новее
+     *
+     * @return true, если значение записано
+     */
+    private boolean putIfNewer(DealDTO deal, long version) {
+
+        RedisCacheConfiguration configuration = configuration();
+        Duration ttl = configuration.getTtlFunction().getTimeToLive(deal.getId(), deal);
+        byte[] value = ByteUtils.getBytes(configuration.getValueSerializationPair().write(deal));
+
+        Long written = redisTemplate.execute((RedisCallback<Long>) connection -> connection.scriptingCommands().eval(
+                PUT_IF_NEWER_SCRIPT,
+                ReturnType.INTEGER,
+                2,
+                key(configuration, deal.getId()),
+                versionKey(configuration, deal.getId()),
+                value,
+                String.valueOf(version).getBytes(StandardCharsets.UTF_8),
+                String.valueOf(ttl.isNegative() ? 0 : ttl.toMillis()).getBytes(StandardCharsets.UTF_8)
+        ));
+
+        return written != null && written == 1L;
+    }
+
+    private void putLocal(DealDTO deal) {
+        if (dealsCacheManager instanceof TwoLevelCacheManager twoLevelCacheManager) {
+            twoLevelCacheManager.putLocal(CACHE_NAME, deal.getId(), deal);
+        }
+    }
+
+    /**
+     * Версия записи - дата изменения сделки в микросекундах: точно представима числом Lua
+     */
+    private static long version(LocalDateTime modifyDate) {
+        return modifyDate.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + modifyDate.getNano() / 1_000;
+    }
+
+    private void evictLocal(Collection<UUID> ids) {
+        if (dealsCacheManager instanceof TwoLevelCacheManager twoLevelCacheManager) {
+            twoLevelCacheManager.evictLocal(CACHE_NAME, ids);
+        }
+    }
+
+    private RedisCacheConfiguration configuration() {
+        return ((RedisCache) cacheManager.getCache(CACHE_NAME)).getCacheConfiguration();
+    }
+
+    private byte[] key(RedisCacheConfiguration configuration, UUID id) {
+        String key = configuration.getKeyPrefixFor(CACHE_NAME) + id;
+        return ByteUtils.getBytes(configuration.getKeySerializationPair().write(key));
+    }
+
+    private byte[] versionKey(RedisCacheConfiguration configuration, UUID id) {
+        String key = configuration.getKeyPrefixFor(CACHE_NAME) + id + VERSION_KEY_SUFFIX;
+        return ByteUtils.getBytes(configuration.getKeySerializationPair().write(key));
+    }
+
+}
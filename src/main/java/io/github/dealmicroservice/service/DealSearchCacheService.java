@@ -0,0 +1,333 @@
+package io.github.dealmicroservice.service;
+
+import io.github.dealmicroservice.model.dto.DealDTO;
+import io.github.dealmicroservice.model.dto.DealFacetsDTO;
+import io.github.dealmicroservice.model.dto.DealSearchDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Кэш результатов поиска сделок.
+ * Ключ - поколение кэша и SHA-256 от нормализованного фильтра DealSearchDTO,
+ * поэтому эквивалентные фильтры (порядок типов и статусов, регистр строк поиска, пробелы) попадают в одну запись.
+ * Любое изменение сделок или контрагентов увеличивает поколение в Redis, после чего
+ * все ранее закэшированные страницы перестают находиться и истекают по TTL.
+ * Для режима подсчета cached отдельно кэшируется точное количество сделок по фильтру (без учета страницы
+ * и сортировки); эти записи не зависят от поколения и живут dealmicroservice.search.cache.count-ttl.
+ * Фасеты поиска кэшируются по тому же хешу фильтра с учетом поколения и сбрасываются вместе со страницами.
+ * Redis для поиска - только кэш: при его недоступности поиск выполняется в БД без кэширования,
+ * а неудавшееся увеличение поколения оставляет старые страницы жить не дольше их TTL.
+ * Результаты, которые будут закэшированы, читаются с основной БД: страница с отстающей реплики
+ * попала бы в кэш под новым поколением и пережила бы инвалидацию.
+ */
+@Service
+public class DealSearchCacheService {
+
+    public static final String CACHE_NAME = "deal_search";
+
+    public static final String COUNT_CACHE_NAME = "deal_search_count";
+
+    public static final String FACETS_CACHE_NAME = "deal_search_facets";
+
+    static final String GENERATION_KEY = "deal_search:generation";
+
+    private final Logger log = LogManager.getLogger(DealSearchCacheService.class);
+
+    @Value("${dealmicroservice.search.cache.enabled:true}")
+    private boolean enabled;
+
+    private final CacheManager cacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final ReadYourWritesService readYourWritesService;
+
+    public DealSearchCacheService(CacheManager cacheManager, StringRedisTemplate redisTemplate,
+                                  ReadYourWritesService readYourWritesService) {
+        this.cacheManager = cacheManager;
+        this.redisTemplate = redisTemplate;
+        this.readYourWritesService = readYourWritesService;
+    }
+
+    /**
+     * Возвращает страницу из кэша либо выполняет поиск и кладет результат в кэш
+     *
+     * @param request  фильтр поиска (после применения ролевых ограничений)
+     * @param pageable параметры страницы, с которыми собирается результат
+     * @param loader   поиск в БД при отсутствии записи в кэше
+     */
+    public Slice<DealDTO> getOrLoad(DealSearchDTO request, Pageable pageable, Supplier<Slice<DealDTO>> loader) {
+
+        if (!enabled) {
+            return loader.get();
+        }
+
+        String generation = currentGeneration();
+        if (generation == null) {
+            return loader.get();
+        }
+
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        String key = generation + ":" + cacheKey(request);
+
+        CachedPage cached = get(cache, key, CachedPage.class);
+        if (cached != null) {
+            log.debug("Deal search cache hit: {}", key);
+            return cached.getTotal() >= 0
+                    ? new PageImpl<>(cached.getContent(), pageable, cached.getTotal())
+                    : new SliceImpl<>(cached.getContent(), pageable, cached.isHasNext());
+        }
+
+        Slice<DealDTO> slice = readYourWritesService.readFromPrimary(loader);
+        long total = slice instanceof Page<DealDTO> page ? page.getTotalElements() : -1;
+        put(cache, key, new CachedPage(new ArrayList<>(slice.getContent()), total, slice.hasNext()));
+
+        return slice;
+    }
+
+    /**
+     * Возвращает точное количество сделок по фильтру из кэша либо подсчитывает его и кладет в кэш.
+     * Запись не сбрасывается при изменении сделок, поэтому количество может отставать на время TTL.
+     *
+     * @param request фильтр поиска (после применения ролевых ограничений)
+     * @param counter подсчет в БД при отсутствии записи в кэше
+     */
+    public long getOrCount(DealSearchDTO request, LongSupplier counter) {
+
+        if (!enabled) {
+            return counter.getAsLong();
+        }
+
+        Cache cache = cacheManager.getCache(COUNT_CACHE_NAME);
+        String key = hash(canonicalFilter(request).toString());
+
+        Number cached = get(cache, key, Number.class);
+        if (cached != null) {
+            log.debug("Deal search count cache hit: {}", key);
+            return cached.longValue();
+        }
+
+        long total = readYourWritesService.readFromPrimary(counter::getAsLong);
+        put(cache, key, total);
+
+        return total;
+    }
+
+    /**
+     * Возвращает фасеты поиска из кэша либо подсчитывает их и кладет в кэш.
+     * Ключ не зависит от страницы и сортировки, запись сбрасывается при изменении сделок.
+     *
+     * @param request фильтр поиска (после применения ролевых ограничений)
+     * @param loader  подсчет в БД при отсутствии записи в кэше
+     */
+    public DealFacetsDTO getOrLoadFacets(DealSearchDTO request, Supplier<DealFacetsDTO> loader) {
+
+        if (!enabled) {
+            return loader.get();
+        }
+
+        String generation = currentGeneration();
+        if (generation == null) {
+            return loader.get();
+        }
+
+        Cache cache = cacheManager.getCache(FACETS_CACHE_NAME);
+        String key = generation + ":" + hash(canonicalFilter(request).toString());
+
+        DealFacetsDTO cached = get(cache, key, DealFacetsDTO.class);
+        if (cached != null) {
+            log.debug("Deal search facets cache hit: {}", key);
+            return cached;
+        }
+
+        DealFacetsDTO facets = readYourWritesService.readFromPrimary(loader);
+        put(cache, key, facets);
+
+        return facets;
+    }
+
+    /**
+     * Инвалидирует все закэшированные результаты поиска, увеличивая поколение.
+     * Внутри транзакции поколение увеличивается после коммита, чтобы параллельный поиск
+     * не закэшировал данные, которые еще не видны другим транзакциям.
+     */
+    public void invalidate() {
+
+        if (!enabled) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bumpGeneration();
+                }
+            });
+        } else {
+            bumpGeneration();
+        }
+    }
+
+    /**
+     * Канонический хеш фильтра: пустые строки и списки приравниваются к отсутствию фильтра,
+     * строки поиска без учета регистра приводятся к нижнему регистру, списки сортируются без дублей.
+     * Курсор не участвует в ключе, так как keyset-поиск не кэшируется.
+     */
+    static String cacheKey(DealSearchDTO request) {
+
+        StringJoiner canonical = canonicalFilter(request);
+
+        canonical.add(String.valueOf(request.getPage()));
+        canonical.add(String.valueOf(request.getSize()));
+        canonical.add(Objects.toString(request.getSortBy(), ""));
+        canonical.add(Objects.toString(request.getSortDirection(), "").toUpperCase(Locale.ROOT));
+        canonical.add(Objects.toString(request.getCountMode(), "").toLowerCase(Locale.ROOT));
+
+        return hash(canonical.toString());
+    }
+
+    /**
+     * Каноническое представление условий фильтра без параметров страницы и сортировки
+     */
+    private static StringJoiner canonicalFilter(DealSearchDTO request) {
+
+        StringJoiner canonical = new StringJoiner("\u001F");
+        canonical.add(Objects.toString(request.getDealId(), ""));
+        canonical.add(normalize(request.getDescription(), false));
+        canonical.add(normalize(request.getDescriptionQuery(), true));
+        canonical.add(normalize(request.getAgreementNumber(), true));
+        canonical.add(Objects.toString(request.getAgreementDateFrom(), ""));
+        canonical.add(Objects.toString(request.getAgreementDateTo(), ""));
+        canonical.add(Objects.toString(request.getAvailabilityDateFrom(), ""));
+        canonical.add(Objects.toString(request.getAvailabilityDateTo(), ""));
+        canonical.add(normalize(request.getType()));
+        canonical.add(normalize(request.getStatus()));
+        canonical.add(Objects.toString(request.getCloseDtFrom(), ""));
+        canonical.add(Objects.toString(request.getCloseDtTo(), ""));
+        canonical.add(normalize(request.getBorrowerSearch(), true));
+        canonical.add(normalize(request.getWarrantySearch(), true));
+
+        if (request.getSum() != null) {
+            BigDecimal value = request.getSum().getValue();
+            canonical.add(value != null ? value.stripTrailingZeros().toPlainString() : "");
+            canonical.add(normalize(request.getSum().getCurrency(), false));
+        } else {
+            canonical.add("").add("");
+        }
+
+        return canonical;
+    }
+
+    private static String hash(String canonical) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String normalize(String value, boolean ignoreCase) {
+        if (value == null || value.trim().isEmpty()) {
+            return "";
+        }
+        return ignoreCase ? value.trim().toLowerCase(Locale.ROOT) : value;
+    }
+
+    private static String normalize(List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return "";
+        }
+        return String.join(",", values.stream().filter(Objects::nonNull).distinct().sorted().toList());
+    }
+
+    /**
+     * Текущее поколение кэша; null, если Redis недоступен и поиск нужно выполнить без кэша
+     */
+    private String currentGeneration() {
+        try {
+            String generation = redisTemplate.opsForValue().get(GENERATION_KEY);
+            return generation != null ? generation : "0";
+        } catch (DataAccessException e) {
+            log.warn("Failed to read deal search cache generation, searching without cache", e);
+            return null;
+        }
+    }
+
+    private void bumpGeneration() {
+        try {
+            Long generation = redisTemplate.opsForValue().increment(GENERATION_KEY);
+            log.debug("Deal search cache invalidated, generation={}", generation);
+        } catch (DataAccessException e) {
+            log.warn("Failed to invalidate deal search cache, cached pages expire by TTL", e);
+        }
+    }
+
+    /**
+     * Читает запись кэша; ошибка Redis или значение другого типа считаются промахом
+     */
+    private <T> T get(Cache cache, String key, Class<T> type) {
+        try {
+            Cache.ValueWrapper cached = cache.get(key);
+            return cached != null && type.isInstance(cached.get()) ? type.cast(cached.get()) : null;
+        } catch (DataAccessException e) {
+            log.warn("Failed to read deal search cache {}, key: {}", cache.getName(), key, e);
+            return null;
+        }
+    }
+
+    private void put(Cache cache, String key, Object value) {
+        try {
+            cache.put(key, value);
+        } catch (DataAccessException e) {
+            log.warn("Failed to put into deal search cache {}, key: {}", cache.getName(), key, e);
+        }
+    }
+
+    /**
+     * Закэшированная страница: содержимое, общее количество найденных сделок
+     * (-1, если количество не подсчитывалось) и признак наличия следующей страницы
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CachedPage {
+
+        private List<DealDTO> content;
+
+        private long total;
+
+        private boolean hasNext;
+
+    }
+
+}
@@ -0,0 +1,190 @@
+package io.github.dealmicroservice.service;
+
+import io.github.dealmicroservice.repository.DealSearchViewRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * Сопровождение модели чтения deal_search_view.
+ * Методы refresh* вызываются в транзакции, изменившей сделку или контрагентов,
+ * поэтому строка модели фиксируется вместе с изменением.
+ * Пересчет блокирует строки deal пересчитываемых сделок (SELECT ... FOR UPDATE в refresh_deal_search_view):
+ * из двух транзакций, изменивших одну сделку, вторая ждет коммита первой и пересчитывает строку
+ * по снимку, в котором видны оба изменения, поэтому строки модели не затирают друг друга.
+ * Пересчеты, затрагивающие произвольно много сделок (переименование типа, обновление контрагента,
+ * сверка по расписанию), выполняются порциями по BATCH_SIZE сделок в отдельных транзакциях,
+ * чтобы не держать блокировки долго.
+ */
+@Service
+public class DealSearchViewService {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final UUID MIN_ID = new UUID(0, 0);
+
+    private final Logger log = LogManager.getLogger(DealSearchViewService.class);
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Value("${dealmicroservice.search.view.rebuild-lock-ttl:PT1H}")
+    private Duration rebuildLockTtl;
+
+    private final DealSearchViewRepository dealSearchViewRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService dealSearchViewExecutor;
+
+    public DealSearchViewService(DealSearchViewRepository dealSearchViewRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Qualifier("dealSearchViewExecutor") ExecutorService dealSearchViewExecutor) {
+        this.dealSearchViewRepository = dealSearchViewRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dealSearchViewExecutor = dealSearchViewExecutor;
+    }
+
+    /**
+     * Пересчитывает строку модели для сделки
+     */
+    @Transactional
+    public void refreshDeal(UUID dealId) {
+        dealSearchViewRepository.flush();
+        dealSearchViewRepository.refreshByDealId(dealId);
+    }
+
+    /**
+     * Пересчитывает строки модели для набора сделок одним запросом
+     */
+    @Transactional
+    public void refreshDeals(Collection<UUID> dealIds) {
+        dealSearchViewRepository.flush();
+        int refreshed = dealSearchViewRepository.refreshByDealIds(dealIds);
+        log.debug("Refreshed {} deal search rows for {} deals", refreshed, dealIds.size());
+    }
+
+    /**
+     * Пересчитывает строку модели для сделки, к которой относится контрагент сделки
+     *
+     * @param dealContractorId идентификатор записи deal_contractor
+     */
+    @Transactional
+    public void refreshDealOfContractor(UUID dealContractorId) {
+        dealSearchViewRepository.flush();
+        dealSearchViewRepository.refreshByDealContractorId(dealContractorId);
+    }
+
+    /**
+     * Пересчитывает строки модели всех сделок с участием контрагента (денормализованные наименование и ИНН).
+     * Как и refreshDealsByType, выполняется после коммита в фоне порциями, поэтому транзакция обработки
+     * сообщения контрагента не блокирует разом все его сделки
+     *
+     * @param contractorId внешний идентификатор контрагента
+     */
+    public void refreshDealsByContractorId(String contractorId) {
+        refreshInBackground("contractorId=" + contractorId,
+                after -> dealSearchViewRepository.findDealIdsByContractorIdAfter(contractorId, after, BATCH_SIZE));
+    }
+
+    /**
+     * Пересчитывает строки модели всех сделок указанного типа (денормализованное название типа).
+     * Внутри транзакции пересчет запускается после коммита; выполняется в фоне порциями,
+     * поэтому не удлиняет транзакцию изменения типа и не блокирует разом все сделки типа
+     */
+    public void refreshDealsByType(String typeId) {
+        refreshInBackground("typeId=" + typeId,
+                after -> dealSearchViewRepository.findDealIdsByTypeIdAfter(typeId, after, BATCH_SIZE));
+    }
+
+    private void refreshInBackground(String target, Function<UUID, List<UUID>> nextBatch) {
+
+        Runnable refresh = () -> {
+            try {
+                int refreshed = refreshInBatches(nextBatch);
+                log.debug("Refreshed {} deal search rows for {}", refreshed, target);
+            } catch (RuntimeException e) {
+                log.warn("Failed to refresh deal search rows for {}, they will be fixed by rebuild", target, e);
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dealSearchViewExecutor.execute(refresh);
+                }
+            });
+        } else {
+            dealSearchViewExecutor.execute(refresh);
+        }
+    }
+
+    /**
+     * Сверка модели чтения с основными таблицами: удаляет строки неактивных сделок
+     * и пересчитывает строки активных порциями.
+     * Расписание задается настройкой dealmicroservice.search.view.rebuild-cron (по умолчанию ежедневно в 03:00).
+     * Сверку выполняет один экземпляр: блокировка в таблице scheduled_lock берется на
+     * dealmicroservice.search.view.rebuild-lock-ttl, остальные экземпляры пропускают запуск.
+     */
+    @Scheduled(cron = "${dealmicroservice.search.view.rebuild-cron:0 0 3 * * *}")
+    public void rebuild() {
+
+        if (dealSearchViewRepository.tryLockRebuild(instanceId, rebuildLockTtl.toSeconds()) == 0) {
+            log.info("Deal search view rebuild is running on another instance, skipping");
+            return;
+        }
+
+        try {
+            log.info("Rebuilding deal search view");
+            int deleted = dealSearchViewRepository.deleteInactive();
+            int refreshed = refreshInBatches(after -> dealSearchViewRepository.findActiveDealIdsAfter(after, BATCH_SIZE));
+            log.info("Deal search view rebuilt: {} rows refreshed, {} rows removed", refreshed, deleted);
+        } finally {
+            dealSearchViewRepository.unlockRebuild(instanceId);
+        }
+    }
+
+    /**
+     * Пересчитывает строки порциями: каждая порция выбирается (по возрастанию id после последней
+     * пересчитанной сделки) и пересчитывается в своей транзакции на основной БД
+     */
+    private int refreshInBatches(Function<UUID, List<UUID>> nextBatch) {
+
+        int refreshed = 0;
+        UUID after = MIN_ID;
+
+        while (true) {
+            UUID from = after;
+            Batch batch = transactionTemplate.execute(status -> {
+                List<UUID> dealIds = nextBatch.apply(from);
+                return dealIds.isEmpty()
+                        ? null
+                        : new Batch(dealIds.get(dealIds.size() - 1), dealSearchViewRepository.refreshByDealIds(dealIds));
+            });
+
+            if (batch == null) {
+                return refreshed;
+            }
+
+            refreshed += batch.refreshed();
+            after = batch.lastId();
+        }
+    }
+
+    private record Batch(UUID lastId, int refreshed) {
+    }
+
+}
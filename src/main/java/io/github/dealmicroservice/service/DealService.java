@@ -1,10 +1,15 @@
 package io.github.dealmicroservice.service;
 
+import io.github.dealmicroservice.model.dto.DealBatchSaveResultDTO;
+import io.github.dealmicroservice.model.dto.DealCursorPageDTO;
 import io.github.dealmicroservice.model.dto.DealDTO;
+import io.github.dealmicroservice.model.dto.DealFacetsDTO;
 import io.github.dealmicroservice.model.dto.DealSearchDTO;
+import io.github.dealmicroservice.model.dto.DealSearchPageDTO;
 import io.github.dealmicroservice.model.dto.DealSaveDTO;
-import org.springframework.data.domain.Page;
 
+import java.io.OutputStream;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -20,6 +25,15 @@ public interface DealService {
      */
     DealDTO saveDeal(DealSaveDTO request);
 
+    /**
+     * Создает и обновляет сделки пакетом: сделка без id создается со статусом "DRAFT", с id - обновляется.
+     * Ошибка проверки одной сделки не отменяет сохранение остальных, а ошибка БД при записи
+     * (нарушение ограничения, потеря соединения) откатывает весь пакет
+     * @param requests сделки для сохранения
+     * @return результаты сохранения в порядке запроса
+     */
+    List<DealBatchSaveResultDTO> saveDeals(List<DealSaveDTO> requests);
+
     /**
      * Изменяет статус сделки
      * @param id       идентификатор сделки
@@ -35,11 +49,39 @@ public interface DealService {
      */
     DealDTO getDealById(UUID id);
 
+    /**
+     * Получает несколько сделок по идентификаторам: закэшированные - из Redis, остальные - одним запросом к БД
+     * @param ids идентификаторы сделок
+     * @return найденные активные сделки в порядке идентификаторов запроса
+     */
+    List<DealDTO> getDealsByIds(List<UUID> ids);
+
     /**
      * Осуществляет поиск сделок по заданным фильтрам с пагинацией и сортировкой
-     * @param request DTO с параметрами поиска, пагинации и сортировки
-     * @return страница с результатами поиска
+     * @param request DTO с параметрами поиска, пагинации, сортировки и режимом подсчета общего количества
+     * @return страница с результатами поиска; общее количество не заполняется в режиме подсчета none
+     */
+    DealSearchPageDTO searchDeals(DealSearchDTO request);
+
+    /**
+     * Осуществляет поиск сделок с keyset-пагинацией по курсору, без подсчета общего количества
+     * @param request DTO с параметрами поиска, сортировки и курсором предыдущей страницы
+     * @return страница с результатами поиска и курсором следующей страницы
+     */
+    DealCursorPageDTO searchDealsByCursor(DealSearchDTO request);
+
+    /**
+     * Выгружает все сделки, подходящие под фильтры, в поток в формате NDJSON
+     * @param request      DTO с параметрами поиска и сортировки (пагинация не учитывается)
+     * @param outputStream поток, в который пишутся сделки
+     */
+    void streamDeals(DealSearchDTO request, OutputStream outputStream);
+
+    /**
+     * Подсчитывает сделки, подходящие под фильтры поиска, по статусам, типам и валютам основной суммы
+     * @param request DTO с параметрами поиска (пагинация и сортировка не учитываются)
+     * @return количество сделок по значениям каждого фасета
      */
-    Page<DealDTO> searchDeals(DealSearchDTO request);
+    DealFacetsDTO getFacets(DealSearchDTO request);
 
 }
@@ -8,4 +8,12 @@ public interface DealStatusService {
 
     List<DealStatusDTO> getAllDealStatuses();
 
+    /**
+     * ETag списка статусов, полученного из getAllDealStatuses: вычисляется один раз при заполнении кэша
+     * и хранится в нем рядом со списком
+     * @param dealStatuses список статусов сделок
+     * @return ETag списка
+     */
+    String getDealStatusesETag(List<DealStatusDTO> dealStatuses);
+
 }
@@ -8,6 +8,14 @@ public interface DealTypeService {
 
     List<DealTypeDTO> getAllDealTypes();
 
+    /**
+     * ETag списка типов, полученного из getAllDealTypes: вычисляется один раз при заполнении кэша
+     * и хранится в нем рядом со списком
+     * @param dealTypes список типов сделок
+     * @return ETag списка
+     */
+    String getDealTypesETag(List<DealTypeDTO> dealTypes);
+
     DealTypeDTO saveDealType(DealTypeDTO dealType);
 
 }
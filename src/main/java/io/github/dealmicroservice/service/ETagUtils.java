@@ -0,0 +1,51 @@
+package io.github.dealmicroservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * ETag ответов по содержимому DTO.
+ * Значение - SHA-256 от JSON DTO с упорядоченными по имени свойствами и ключами, поэтому
+ * совпадает на всех экземплярах сервиса и не повторяется для разных данных, как 32-битный hashCode.
+ * ETag вычисляется один раз при загрузке значения в кэш и хранится вместе с ним (DealDTO.etag,
+ * соседние ключи кэша справочников), поэтому ответ 304 сводится к сравнению строк.
+ * ETag слабый: он обозначает равенство данных, а не байтов ответа.
+ * При совпадении с If-None-Match Spring MVC отвечает 304 без тела.
+ */
+public final class ETagUtils {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private ETagUtils() {
+    }
+
+    /**
+     * Возвращает сохраненный ETag, а для значения без него (например, записанного в кэш до появления ETag) - вычисляет
+     */
+    public static String of(String etag, Object body) {
+        return etag != null ? etag : of(body);
+    }
+
+    public static String of(Object body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(MAPPER.writeValueAsBytes(body));
+            return "W/\"" + HexFormat.of().formatHex(digest) + "\"";
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not compute ETag", e);
+        }
+    }
+
+}
@@ -0,0 +1,199 @@
+package io.github.dealmicroservice.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Защита read-your-writes при чтении с реплики.
+ * После изменения сделки вызывающий (аутентифицированный пользователь, а без аутентификации - клиент
+ * из заголовка dealmicroservice.datasource.replica.client-id-header) на время
+ * dealmicroservice.datasource.replica.read-your-writes-window закрепляется за основной БД,
+ * чтобы его следующие read-only запросы не попали на реплику, которая еще не получила изменение.
+ * Адрес клиента идентификатором не служит: за балансировщиком это адрес прокси, а за NAT он общий у многих клиентов,
+ * поэтому вызывающий без явного идентификатора не закрепляется.
+ * Закрепление хранится в Redis ключом с TTL окна, поэтому действует на всех экземплярах сервиса;
+ * если Redis недоступен, чтение выполняется с основной БД. Результат проверки запоминается в атрибуте
+ * HTTP-запроса, так что Redis опрашивается не чаще одного раза за запрос, а не в каждой read-only транзакции.
+ * Без настроенной реплики (dealmicroservice.datasource.replica.url) сервис ничего не делает.
+ */
+@Service
+public class ReadYourWritesService {
+
+    static final String KEY_PREFIX = "read_your_writes:";
+
+    private static final String PINNED_ATTRIBUTE = ReadYourWritesService.class.getName() + ".pinned";
+
+    private static final int MAX_CLIENT_ID_LENGTH = 128;
+
+    private final Logger log = LogManager.getLogger(ReadYourWritesService.class);
+
+    @Value("${dealmicroservice.datasource.replica.read-your-writes-window:PT5S}")
+    private Duration window;
+
+    @Value("${dealmicroservice.datasource.replica.url:}")
+    private String replicaUrl;
+
+    @Value("${dealmicroservice.datasource.replica.client-id-header:X-Client-Id}")
+    private String clientIdHeader;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final ThreadLocal<Boolean> pinnedOverride = new ThreadLocal<>();
+
+    public ReadYourWritesService(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Закрепляет текущего вызывающего за основной БД.
+     * Внутри транзакции окно отсчитывается от коммита, так как до него изменение не видно и на основной БД.
+     */
+    public void recordWrite() {
+
+        if (!StringUtils.hasText(replicaUrl)) {
+            return;
+        }
+
+        String caller = currentCaller();
+        if (caller == null) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pin(caller);
+                }
+            });
+        } else {
+            pin(caller);
+        }
+    }
+
+    /**
+     * Должен ли текущий вызывающий читать с основной БД
+     */
+    public boolean isPinnedToPrimary() {
+
+        Boolean override = pinnedOverride.get();
+        if (override != null) {
+            return override;
+        }
+
+        if (!StringUtils.hasText(replicaUrl)) {
+            return false;
+        }
+
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null
+                && requestAttributes.getAttribute(PINNED_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof Boolean pinned) {
+            return pinned;
+        }
+
+        String caller = currentCaller();
+        if (caller == null) {
+            return false;
+        }
+
+        boolean pinned;
+        try {
+            pinned = Boolean.TRUE.equals(redisTemplate.hasKey(KEY_PREFIX + caller));
+        } catch (DataAccessException e) {
+            log.warn("Failed to read primary pin of {}, reading from primary: {}", caller, e.getMessage());
+            pinned = true;
+        }
+
+        rememberPinned(pinned);
+        return pinned;
+    }
+
+    /**
+     * Выполняет действие с заданным решением о закреплении за основной БД вместо вычисляемого по вызывающему.
+     * Используется в рабочих потоках, чтобы их read-only транзакции читали из той же БД, что и поток,
+     * который их запустил
+     */
+    public <T> T callPinned(boolean pinnedToPrimary, Supplier<T> action) {
+
+        Boolean previous = pinnedOverride.get();
+        pinnedOverride.set(pinnedToPrimary);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                pinnedOverride.remove();
+            } else {
+                pinnedOverride.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Выполняет действие с чтением из основной БД. Используется при заполнении общих кэшей:
+     * результат, прочитанный с отстающей реплики, иначе пережил бы инвалидацию кэша после записи
+     */
+    public <T> T readFromPrimary(Supplier<T> action) {
+        return callPinned(true, action);
+    }
+
+    private void pin(String caller) {
+        rememberPinned(true);
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + caller, "1", window);
+            log.debug("Caller {} pinned to primary for {}", caller, window);
+        } catch (DataAccessException e) {
+            log.warn("Failed to pin {} to primary: {}", caller, e.getMessage());
+        }
+    }
+
+    /**
+     * Запоминает решение о закреплении до конца текущего HTTP-запроса
+     */
+    private void rememberPinned(boolean pinned) {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null) {
+            requestAttributes.setAttribute(PINNED_ATTRIBUTE, pinned, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    /**
+     * Идентификатор вызывающего: имя пользователя, иначе идентификатор клиента из заголовка HTTP-запроса,
+     * null - без них, а также вне HTTP-запроса (обработчики сообщений, фоновые задачи)
+     */
+    private String currentCaller() {
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletRequest request = attributes.getRequest();
+            String clientId = request.getHeader(clientIdHeader);
+            if (StringUtils.hasText(clientId) && clientId.length() <= MAX_CLIENT_ID_LENGTH) {
+                return "client:" + clientId.trim();
+            }
+        }
+
+        return null;
+    }
+
+}
@@ -0,0 +1,321 @@
+package io.github.dealmicroservice.service;
+
+import io.github.dealmicroservice.model.entity.ContractorRole;
+import io.github.dealmicroservice.model.entity.Currency;
+import io.github.dealmicroservice.model.entity.DealStatus;
+import io.github.dealmicroservice.model.entity.DealType;
+import io.github.dealmicroservice.repository.ContractorRoleRepository;
+import io.github.dealmicroservice.repository.CurrencyRepository;
+import io.github.dealmicroservice.repository.DealStatusRepository;
+import io.github.dealmicroservice.repository.DealTypeRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Снимок справочников в памяти: типы и статусы сделок, роли контрагентов и валюты.
+ * Используется для проверки ссылок на справочники при записи без запроса к БД.
+ * Снимок загружается при старте сервиса и не изменяется: обновление справочника собирает новый
+ * снимок и атомарно подменяет ссылку на него, поэтому читатели видят либо старый, либо новый снимок целиком.
+ * Справочники перечитываются с основной БД:
+ * - после коммита изменения на этом экземпляре (saveDealType), остальные экземпляры получают
+ *   сообщение в канале Redis {@link #REFRESH_CHANNEL} и перечитывают тот же справочник;
+ * - периодически, раз в dealmicroservice.reference-data.refresh-interval, чтобы подхватить изменения
+ *   существующих записей при потере сообщения или изменении в обход сервиса;
+ * - при обращении к неизвестному идентификатору, но не чаще раза в dealmicroservice.reference-data.miss-reload-interval
+ *   на справочник: в остальное время неизвестный идентификатор сразу считается отсутствующим.
+ * Каждый справочник перечитывается под своей блокировкой и не задерживает чтения и загрузку других справочников.
+ * Снимок хранит и неактивные записи (роли неактивных записей нужны для отображения),
+ * методы find* возвращают только активные.
+ */
+@Service
+public class ReferenceDataSnapshot implements MessageListener {
+
+    public static final String REFRESH_CHANNEL = "dealmicroservice:reference-data:refresh";
+
+    private static final String SEPARATOR = "\n";
+    private static final long NEVER = Long.MIN_VALUE;
+
+    private final Logger log = LogManager.getLogger(ReferenceDataSnapshot.class);
+
+    private final DealTypeRepository dealTypeRepository;
+    private final DealStatusRepository dealStatusRepository;
+    private final ContractorRoleRepository contractorRoleRepository;
+    private final CurrencyRepository currencyRepository;
+    private final ReadYourWritesService readYourWritesService;
+    private final StringRedisTemplate redisTemplate;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+    private final Map<Section, ReentrantLock> locks = new EnumMap<>(Section.class);
+    private final Map<Section, AtomicLong> loadedAt = new EnumMap<>(Section.class);
+    private final Map<Section, AtomicLong> missReloadedAt = new EnumMap<>(Section.class);
+
+    @Value("${dealmicroservice.reference-data.miss-reload-interval:PT1S}")
+    private Duration missReloadInterval;
+
+    public ReferenceDataSnapshot(DealTypeRepository dealTypeRepository,
+                                 DealStatusRepository dealStatusRepository,
+                                 ContractorRoleRepository contractorRoleRepository,
+                                 CurrencyRepository currencyRepository,
+                                 ReadYourWritesService readYourWritesService,
+                                 StringRedisTemplate redisTemplate) {
+        this.dealTypeRepository = dealTypeRepository;
+        this.dealStatusRepository = dealStatusRepository;
+        this.contractorRoleRepository = contractorRoleRepository;
+        this.currencyRepository = currencyRepository;
+        this.readYourWritesService = readYourWritesService;
+        this.redisTemplate = redisTemplate;
+        for (Section section : Section.values()) {
+            locks.put(section, new ReentrantLock());
+            loadedAt.put(section, new AtomicLong(NEVER));
+            missReloadedAt.put(section, new AtomicLong(NEVER));
+        }
+    }
+
+    /**
+     * Загружает снимок при старте; при недоступности БД справочник загрузится при первом обращении
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        refresh();
+    }
+
+    /**
+     * Периодически перечитывает все справочники; ошибка БД оставляет прежний снимок до следующей попытки
+     */
+    @Scheduled(fixedDelayString = "${dealmicroservice.reference-data.refresh-interval:PT5M}",
+            initialDelayString = "${dealmicroservice.reference-data.refresh-interval:PT5M}")
+    public void refresh() {
+        for (Section section : Section.values()) {
+            try {
+                reload(section, System.nanoTime());
+            } catch (DataAccessException e) {
+                log.warn("Failed to reload reference data {}, keeping previous snapshot", section, e);
+            }
+        }
+    }
+
+    public Optional<DealType> findActiveDealType(String id) {
+        return active(get(Snapshot::dealTypes, Section.DEAL_TYPES, id), DealType::getIsActive);
+    }
+
+    public Optional<DealStatus> findActiveDealStatus(String id) {
+        return active(get(Snapshot::dealStatuses, Section.DEAL_STATUSES, id), DealStatus::getIsActive);
+    }
+
+    public Optional<ContractorRole> findActiveContractorRole(String id) {
+        return active(get(Snapshot::contractorRoles, Section.CONTRACTOR_ROLES, id), ContractorRole::getIsActive);
+    }
+
+    public Optional<Currency> findActiveCurrency(String id) {
+        return active(get(Snapshot::currencies, Section.CURRENCIES, id), Currency::getIsActive);
+    }
+
+    /**
+     * Возвращает роль по идентификатору, в том числе неактивную (null, если роль не существует)
+     */
+    public ContractorRole getContractorRole(String id) {
+        return get(Snapshot::contractorRoles, Section.CONTRACTOR_ROLES, id);
+    }
+
+    /**
+     * Перечитывает типы сделок и сообщает об изменении остальным экземплярам;
+     * внутри транзакции - после коммита, чтобы снимок не увидел незафиксированных изменений
+     */
+    public void refreshDealTypes() {
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refreshAndPublish(Section.DEAL_TYPES);
+                }
+            });
+        } else {
+            refreshAndPublish(Section.DEAL_TYPES);
+        }
+    }
+
+    /**
+     * Перечитывает справочник по сообщению другого экземпляра: сообщение содержит идентификатор
+     * экземпляра-отправителя и название справочника через перевод строки
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR, 2);
+        if (parts.length < 2 || instanceId.equals(parts[0])) {
+            return;
+        }
+
+        Section section;
+        try {
+            section = Section.valueOf(parts[1]);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+
+        try {
+            reload(section, System.nanoTime());
+            log.debug("Reference data {} reloaded by another instance", section);
+        } catch (DataAccessException e) {
+            log.warn("Failed to reload reference data {} changed by another instance", section, e);
+        }
+    }
+
+    private void refreshAndPublish(Section section) {
+
+        reload(section, System.nanoTime());
+
+        try {
+            redisTemplate.convertAndSend(REFRESH_CHANNEL, instanceId + SEPARATOR + section.name());
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish reference data {} refresh, other instances will reload it by schedule", section, e);
+        }
+    }
+
+    private <T> T get(Function<Snapshot, Map<String, T>> section, Section name, String id) {
+
+        if (id == null) {
+            return null;
+        }
+
+        long requestedAt = System.nanoTime();
+        T value = section.apply(snapshot.get()).get(id);
+        if (value == null && reloadOnMiss(name, requestedAt)) {
+            reload(name, requestedAt);
+            value = section.apply(snapshot.get()).get(id);
+        }
+
+        return value;
+    }
+
+    /**
+     * Незагруженный справочник загружается при любом обращении; загруженный перечитывается из-за
+     * неизвестного идентификатора не чаще раза в missReloadInterval, и только одним из обратившихся потоков
+     */
+    private boolean reloadOnMiss(Section section, long now) {
+
+        if (loadedAt.get(section).get() == NEVER) {
+            return true;
+        }
+
+        AtomicLong lastMissReload = missReloadedAt.get(section);
+        long previous = lastMissReload.get();
+        return (previous == NEVER || now - previous >= missReloadInterval.toNanos())
+                && lastMissReload.compareAndSet(previous, now);
+    }
+
+    /**
+     * Перечитывает один справочник с основной БД и подменяет снимок копией с обновленным справочником.
+     * Загрузка пропускается, если справочник уже перечитан другим потоком после requestedAt
+     */
+    private void reload(Section section, long requestedAt) {
+
+        ReentrantLock lock = locks.get(section);
+        lock.lock();
+        try {
+            long loaded = loadedAt.get(section).get();
+            if (loaded != NEVER && loaded - requestedAt >= 0) {
+                return;
+            }
+
+            long startedAt = System.nanoTime();
+            UnaryOperator<Snapshot> update = readYourWritesService.readFromPrimary(() -> load(section));
+            Snapshot current = snapshot.updateAndGet(update);
+            loadedAt.get(section).set(startedAt);
+
+            log.debug("Reference data snapshot reloaded: {}, {} deal types, {} deal statuses, {} contractor roles, {} currencies",
+                    section, current.dealTypes().size(), current.dealStatuses().size(), current.contractorRoles().size(), current.currencies().size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private UnaryOperator<Snapshot> load(Section section) {
+        return switch (section) {
+            case DEAL_TYPES -> {
+                Map<String, DealType> dealTypes = index(dealTypeRepository.findAll(), DealType::getId);
+                yield current -> current.withDealTypes(dealTypes);
+            }
+            case DEAL_STATUSES -> {
+                Map<String, DealStatus> dealStatuses = index(dealStatusRepository.findAll(), DealStatus::getId);
+                yield current -> current.withDealStatuses(dealStatuses);
+            }
+            case CONTRACTOR_ROLES -> {
+                Map<String, ContractorRole> contractorRoles = index(contractorRoleRepository.findAll(), ContractorRole::getId);
+                yield current -> current.withContractorRoles(contractorRoles);
+            }
+            case CURRENCIES -> {
+                Map<String, Currency> currencies = index(currencyRepository.findAll(), Currency::getId);
+                yield current -> current.withCurrencies(currencies);
+            }
+        };
+    }
+
+    private static <T> Map<String, T> index(List<T> values, Function<T, String> id) {
+        return values.stream().collect(Collectors.toUnmodifiableMap(id, Function.identity()));
+    }
+
+    private static <T> Optional<T> active(T value, Function<T, Boolean> isActive) {
+        return Optional.ofNullable(value).filter(v -> Boolean.TRUE.equals(isActive.apply(v)));
+    }
+
+    private enum Section {
+        DEAL_TYPES,
+        DEAL_STATUSES,
+        CONTRACTOR_ROLES,
+        CURRENCIES
+    }
+
+    private record Snapshot(Map<String, DealType> dealTypes,
+                            Map<String, DealStatus> dealStatuses,
+                            Map<String, ContractorRole> contractorRoles,
+                            Map<String, Currency> currencies) {
+
+        static final Snapshot EMPTY = new Snapshot(Map.of(), Map.of(), Map.of(), Map.of());
+
+        Snapshot withDealTypes(Map<String, DealType> dealTypes) {
+            return new Snapshot(dealTypes, dealStatuses, contractorRoles, currencies);
+        }
+
+        Snapshot withDealStatuses(Map<String, DealStatus> dealStatuses) {
+            return new Snapshot(dealTypes, dealStatuses, contractorRoles, currencies);
+        }
+
+        Snapshot withContractorRoles(Map<String, ContractorRole> contractorRoles) {
+            return new Snapshot(dealTypes, dealStatuses, contractorRoles, currencies);
+        }
+
+        Snapshot withCurrencies(Map<String, Currency> currencies) {
+            return new Snapshot(dealTypes, dealStatuses, contractorRoles, currencies);
+        }
+
+    }
+
+}
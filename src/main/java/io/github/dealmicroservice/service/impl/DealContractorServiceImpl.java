@@ -7,17 +7,22 @@ import io.github.dealmicroservice.model.dto.ContractorToRoleDTO;
 import io.github.dealmicroservice.model.dto.DealContractorDTO;
 import io.github.dealmicroservice.model.entity.ContractorToRole;
 import io.github.dealmicroservice.model.entity.DealContractor;
-import io.github.dealmicroservice.repository.ContractorRoleRepository;
 import io.github.dealmicroservice.repository.ContractorToRoleRepository;
 import io.github.dealmicroservice.repository.DealContractorRepository;
 import io.github.dealmicroservice.repository.DealRepository;
+import io.github.dealmicroservice.service.DealCacheService;
 import io.github.dealmicroservice.service.DealContractorService;
+import io.github.dealmicroservice.service.DealSearchCacheService;
+import io.github.dealmicroservice.service.DealSearchViewService;
+import io.github.dealmicroservice.service.ReadYourWritesService;
+import io.github.dealmicroservice.service.ReferenceDataSnapshot;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -31,20 +36,32 @@ public class DealContractorServiceImpl implements DealContractorService {
 
     private final DealContractorRepository dealContractorRepository;
     private final ContractorToRoleRepository contractorToRoleRepository;
-    private final ContractorRoleRepository contractorRoleRepository;
     private final DealRepository dealRepository;
     private final ContractorMapping mappingService;
+    private final DealSearchCacheService dealSearchCacheService;
+    private final DealSearchViewService dealSearchViewService;
+    private final DealCacheService dealCacheService;
+    private final ReferenceDataSnapshot referenceDataSnapshot;
+    private final ReadYourWritesService readYourWritesService;
 
     public DealContractorServiceImpl(DealContractorRepository dealContractorRepository,
                                      ContractorToRoleRepository contractorToRoleRepository,
-                                     ContractorRoleRepository contractorRoleRepository,
                                      DealRepository dealRepository,
-                                     ContractorMapping mappingService) {
+                                     ContractorMapping mappingService,
+                                     DealSearchCacheService dealSearchCacheService,
+                                     DealSearchViewService dealSearchViewService,
+                                     DealCacheService dealCacheService,
+                                     ReferenceDataSnapshot referenceDataSnapshot,
+                                     ReadYourWritesService readYourWritesService) {
         this.dealContractorRepository = dealContractorRepository;
         this.contractorToRoleRepository = contractorToRoleRepository;
-        this.contractorRoleRepository = contractorRoleRepository;
         this.dealRepository = dealRepository;
         this.mappingService = mappingService;
+        this.dealSearchCacheService = dealSearchCacheService;
+        this.dealSearchViewService = dealSearchViewService;
+        this.dealCacheService = dealCacheService;
+        this.referenceDataSnapshot = referenceDataSnapshot;
+        this.readYourWritesService = readYourWritesService;
     }
 
     /**
@@ -83,6 +100,8 @@ public class DealContractorServiceImpl implements DealContractorService {
             }
         }
 
+        UUID previousDealId = contractor.getDealId();
+
         contractor.setDealId(request.getDealId());
         contractor.setContractorId(request.getContractorId());
         contractor.setName(request.getName());
@@ -91,6 +110,12 @@ public class DealContractorServiceImpl implements DealContractorService {
         contractor.setModifyDate(LocalDateTime.now());
 
         DealContractor savedContractor = dealContractorRepository.save(contractor);
+        dealSearchViewService.refreshDeal(savedContractor.getDealId());
+        if (previousDealId != null && !previousDealId.equals(savedContractor.getDealId())) {
+            dealSearchViewService.refreshDeal(previousDealId);
+        }
+        dealSearchCacheService.invalidate();
+        readYourWritesService.recordWrite();
 
         return mappingService.mapToDTO(savedContractor);
     }
@@ -112,6 +137,9 @@ public class DealContractorServiceImpl implements DealContractorService {
         contractor.setModifyDate(LocalDateTime.now());
 
         dealContractorRepository.save(contractor);
+        dealSearchViewService.refreshDeal(contractor.getDealId());
+        dealSearchCacheService.invalidate();
+        readYourWritesService.recordWrite();
     }
 
     /**
@@ -129,7 +157,7 @@ public class DealContractorServiceImpl implements DealContractorService {
         dealContractorRepository.findByIdAndIsActiveTrue(contractorId)
                 .orElseThrow(() -> new EntityNotFoundException("Deal contractor not found with id: " + contractorId));
 
-        contractorRoleRepository.findByIdAndIsActiveTrue(roleId)
+        referenceDataSnapshot.findActiveContractorRole(roleId)
                 .orElseThrow(() -> new EntityNotFoundException("Contractor role not found with id: " + roleId));
 
         ContractorToRole contractorToRole = new ContractorToRole();
@@ -138,6 +166,9 @@ public class DealContractorServiceImpl implements DealContractorService {
         contractorToRole.setIsActive(true);
 
         contractorToRoleRepository.save(contractorToRole);
+        dealSearchViewService.refreshDealOfContractor(contractorId);
+        dealSearchCacheService.invalidate();
+        readYourWritesService.recordWrite();
 
         return ContractorToRoleDTO.builder()
                 .contractorId(contractorId)
@@ -162,8 +193,17 @@ public class DealContractorServiceImpl implements DealContractorService {
 
         contractorToRole.setIsActive(false);
         contractorToRoleRepository.save(contractorToRole);
+        dealSearchViewService.refreshDealOfContractor(contractorId);
+        dealSearchCacheService.invalidate();
+        readYourWritesService.recordWrite();
     }
 
+    /**
+     * Обновляет наименование и ИНН контрагента во всех сделках по сообщению сервиса контрагентов.
+     * Из кэша сделок после коммита удаляются только сделки этого контрагента.
+     *
+     * @param contractorMessage сообщение с актуальными данными контрагента
+     */
     @Transactional
     public void updateContractorInDeals(ContractorMessageDTO contractorMessage) {
 
@@ -181,6 +221,11 @@ public class DealContractorServiceImpl implements DealContractorService {
 
             if (updatedRecords == 0) {
                 log.warn("No deal_contractor records found for contractorId={}", contractorMessage.getId());
+            } else {
+                List<UUID> dealIds = dealContractorRepository.findDealIdsByContractorId(contractorMessage.getId());
+                dealCacheService.evictAll(dealIds);
+                dealSearchViewService.refreshDealsByContractorId(contractorMessage.getId());
+                dealSearchCacheService.invalidate();
             }
 
         } catch (Exception e) {
@@ -1,37 +1,88 @@
 package io.github.dealmicroservice.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.dealmicroservice.exception.EntityNotFoundException;
+import io.github.dealmicroservice.exception.InvalidSearchCursorException;
 import io.github.dealmicroservice.mapping.DealMapping;
+import io.github.dealmicroservice.model.dto.DealBatchSaveResultDTO;
+import io.github.dealmicroservice.model.dto.DealCursorPageDTO;
 import io.github.dealmicroservice.model.dto.DealDTO;
+import io.github.dealmicroservice.model.dto.DealFacetCountDTO;
+import io.github.dealmicroservice.model.dto.DealFacetsDTO;
 import io.github.dealmicroservice.model.dto.DealSearchDTO;
+import io.github.dealmicroservice.model.dto.DealSearchPageDTO;
+import io.github.dealmicroservice.model.dto.RoleDTO;
+import io.github.dealmicroservice.model.entity.ContractorRole;
 import io.github.dealmicroservice.model.entity.Deal;
+import io.github.dealmicroservice.model.entity.DealContractor;
+import io.github.dealmicroservice.model.entity.DealSearchView;
 import io.github.dealmicroservice.model.dto.DealSaveDTO;
+import io.github.dealmicroservice.model.projection.ContractorRoleLink;
+import io.github.dealmicroservice.model.projection.DealFacetProjection;
+import io.github.dealmicroservice.repository.ContractorToRoleRepository;
 import io.github.dealmicroservice.repository.DealRepository;
-import io.github.dealmicroservice.repository.DealStatusRepository;
-import io.github.dealmicroservice.repository.DealTypeRepository;
+import io.github.dealmicroservice.repository.DealSearchCursor;
+import io.github.dealmicroservice.repository.DealSearchFilter;
+import io.github.dealmicroservice.repository.DealSearchQuery;
+import io.github.dealmicroservice.repository.DealSearchQueryCompiler;
+import io.github.dealmicroservice.repository.DealSearchViewRepository;
+import io.github.dealmicroservice.repository.DealSortField;
 import io.github.dealmicroservice.repository.DealSpecification;
+import io.github.dealmicroservice.service.DealCacheService;
+import io.github.dealmicroservice.service.DealSearchCacheService;
+import io.github.dealmicroservice.service.DealSearchViewService;
 import io.github.dealmicroservice.service.DealService;
+import io.github.dealmicroservice.service.ETagUtils;
+import io.github.dealmicroservice.service.ReadYourWritesService;
+import io.github.dealmicroservice.service.ReferenceDataSnapshot;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.data.web.config.EnableSpringDataWebSupport;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.springframework.data.web.config.EnableSpringDataWebSupport.PageSerializationMode.VIA_DTO;
 
@@ -42,26 +93,82 @@ import static org.springframework.data.web.config.EnableSpringDataWebSupport.Pag
 @EnableSpringDataWebSupport(pageSerializationMode = VIA_DTO)
 public class DealServiceImpl implements DealService {
 
+    private static final String READ_PATH_ENTITY = "entity";
+    private static final String READ_PATH_PROJECTION = "projection";
+    private static final String READ_PATH_VIEW = "view";
+    private static final String SEARCH_OUTCOME_SUCCESS = "success";
+    private static final String SEARCH_OUTCOME_ERROR = "error";
+    private static final String HYDRATION_SEQUENTIAL = "sequential";
+    private static final String HYDRATION_PARALLEL = "parallel";
+    private static final String COUNT_MODE_EXACT = "exact";
+    private static final String COUNT_MODE_CACHED = "cached";
+    private static final String COUNT_MODE_ESTIMATED = "estimated";
+    private static final String COUNT_MODE_NONE = "none";
+
     private final Logger log = LogManager.getLogger(DealServiceImpl.class);
 
+    @Value("${dealmicroservice.search.read-path:entity}")
+    private String searchReadPath;
+
+    @Value("${dealmicroservice.search.parallel-hydration:false}")
+    private boolean parallelHydration;
+
+    @Value("${dealmicroservice.search.compiled-queries:true}")
+    private boolean compiledQueries;
+
+    @Value("${dealmicroservice.search.stream.chunk-size:500}")
+    private int streamChunkSize;
+
     private final DealRepository dealRepository;
-    private final DealStatusRepository dealStatusRepository;
     private final DealMapping mappingService;
-    private final DealTypeRepository dealTypeRepository;
+    private final MeterRegistry meterRegistry;
+    private final DealSearchCacheService dealSearchCacheService;
+    private final DealSearchViewRepository dealSearchViewRepository;
+    private final DealSearchViewService dealSearchViewService;
+    private final ContractorToRoleRepository contractorToRoleRepository;
+    private final ReferenceDataSnapshot referenceDataSnapshot;
+    private final ExecutorService dealHydrationExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final ReadYourWritesService readYourWritesService;
+    private final DealCacheService dealCacheService;
 
     public DealServiceImpl(DealRepository dealRepository,
-                           DealStatusRepository dealStatusRepository,
                            DealMapping mappingService,
-                           DealTypeRepository dealTypeRepository) {
+                           MeterRegistry meterRegistry,
+                           DealSearchCacheService dealSearchCacheService,
+                           DealSearchViewRepository dealSearchViewRepository,
+                           DealSearchViewService dealSearchViewService,
+                           ContractorToRoleRepository contractorToRoleRepository,
+                           ReferenceDataSnapshot referenceDataSnapshot,
+                           @Qualifier("dealHydrationExecutor") ExecutorService dealHydrationExecutor,
+                           PlatformTransactionManager transactionManager,
+                           ObjectMapper objectMapper,
+                           EntityManager entityManager,
+                           ReadYourWritesService readYourWritesService,
+                           DealCacheService dealCacheService) {
         this.dealRepository = dealRepository;
-        this.dealStatusRepository = dealStatusRepository;
         this.mappingService = mappingService;
-        this.dealTypeRepository = dealTypeRepository;
+        this.meterRegistry = meterRegistry;
+        this.dealSearchCacheService = dealSearchCacheService;
+        this.dealSearchViewRepository = dealSearchViewRepository;
+        this.dealSearchViewService = dealSearchViewService;
+        this.contractorToRoleRepository = contractorToRoleRepository;
+        this.referenceDataSnapshot = referenceDataSnapshot;
+        this.dealHydrationExecutor = dealHydrationExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.readYourWritesService = readYourWritesService;
+        this.dealCacheService = dealCacheService;
     }
 
     /**
      * Сохраняет новую или обновляет существующую сделку.
      * Для новой сделки устанавливается статус "DRAFT".
+     * Итоговый DTO сделки после коммита записывается в кэш сделок, если там нет более новой версии.
      * @AuditLog - аннотация для логирования методов и http запросов
      *
      * @param request DTO с данными для сохранения сделки
@@ -69,7 +176,6 @@ public class DealServiceImpl implements DealService {
      * @throws EntityNotFoundException если сделка, статус или тип сделки не найдены
      */
     @Transactional
-    @CacheEvict(cacheNames = "deals", key = "#result.id")
     public DealDTO saveDeal(DealSaveDTO request) {
 
         log.info("Save deal {}", request);
@@ -81,34 +187,132 @@ public class DealServiceImpl implements DealService {
         } else {
             deal = new Deal();
 
-            dealStatusRepository.findByIdAndIsActiveTrue("DRAFT")
+            referenceDataSnapshot.findActiveDealStatus("DRAFT")
                     .orElseThrow(() -> new EntityNotFoundException("Статус DRAFT не найден"));
             deal.setStatusId("DRAFT");
 
         }
 
-        deal.setDescription(request.getDescription());
-        deal.setAgreementNumber(request.getAgreementNumber());
-        deal.setAgreementDate(request.getAgreementDate());
-        deal.setAgreementStartDate(request.getAgreementStartDate());
-        deal.setAvailabilityDate(request.getAvailabilityDate());
-        deal.setCloseDt(request.getCloseDt());
-        deal.setModifyDate(LocalDateTime.now());
-
-        dealTypeRepository.findByIdAndIsActiveTrue(request.getTypeId()).orElseThrow(() ->
+        referenceDataSnapshot.findActiveDealType(request.getTypeId()).orElseThrow(() ->
                 new EntityNotFoundException("Тип сделки " + request.getTypeId() + " не найден"));
-        deal.setTypeId(request.getTypeId());
+        applyChanges(deal, request, LocalDateTime.now());
 
         deal = dealRepository.save(deal);
+        dealSearchViewService.refreshDeal(deal.getId());
+        dealSearchCacheService.invalidate();
+        readYourWritesService.recordWrite();
 
         log.info("Deal {} saved", deal.getId());
 
-        return getDealById(deal.getId());
+        DealDTO saved = getDealById(deal.getId());
+        dealCacheService.put(saved, deal.getModifyDate());
+
+        return saved;
+
+    }
+
+    /**
+     * Создает и обновляет сделки пакетом в одной транзакции.
+     * Тип и статус DRAFT проверяются по снимку справочников один раз на пакет (по различным типам запроса),
+     * обновляемые сделки выбираются одним запросом.
+     * Идентификаторы новых сделок генерируются приложением, поэтому вставки и обновления
+     * отправляются в БД пакетами JDBC (hibernate.jdbc.batch_size) при сбросе контекста.
+     * Сделка с неизвестным типом или id несуществующей сделки не сохраняется и получает статус FAILED,
+     * остальные сделки пакета сохраняются. Проверки выполняются до записи в БД; ошибка при сбросе контекста
+     * или коммите (например, нарушение внешнего ключа типа, удаленного параллельно) откатывает весь пакет
+     * и возвращается вызывающему как исключение, а не как результаты FAILED.
+     * Строки модели поиска пересчитываются одним запросом, кэш поиска сбрасывается один раз,
+     * а обновленные сделки удаляются из кэша сделок
+     * одним конвейером Redis после коммита; итоговые сделки повторно не читаются.
+     *
+     * @param requests сделки для сохранения
+     * @return результаты сохранения в порядке запроса
+     */
+    @Transactional
+    public List<DealBatchSaveResultDTO> saveDeals(List<DealSaveDTO> requests) {
+
+        log.info("Save {} deals in batch", requests.size());
+
+        Set<UUID> requestedIds = requests.stream()
+                .map(DealSaveDTO::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<UUID, Deal> existingDeals = requestedIds.isEmpty()
+                ? Map.of()
+                : dealRepository.findAllByIdInAndIsActiveTrue(requestedIds).stream()
+                        .collect(Collectors.toMap(Deal::getId, Function.identity()));
+
+        Set<String> activeTypeIds = requests.stream()
+                .map(DealSaveDTO::getTypeId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .filter(typeId -> referenceDataSnapshot.findActiveDealType(typeId).isPresent())
+                .collect(Collectors.toSet());
+
+        boolean draftStatusActive = referenceDataSnapshot.findActiveDealStatus("DRAFT").isPresent();
+        LocalDateTime modifyDate = LocalDateTime.now();
+
+        List<DealBatchSaveResultDTO> results = new ArrayList<>(requests.size());
+        Set<UUID> savedIds = new LinkedHashSet<>();
+        Set<UUID> updatedIds = new LinkedHashSet<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+
+            DealSaveDTO request = requests.get(i);
+            DealBatchSaveResultDTO.DealBatchSaveResultDTOBuilder result = DealBatchSaveResultDTO.builder()
+                    .index(i)
+                    .id(request.getId());
+
+            if (!activeTypeIds.contains(request.getTypeId())) {
+                results.add(failed(result, "Тип сделки " + request.getTypeId() + " не найден"));
+                continue;
+            }
+
+            Deal deal;
+
+            if (request.getId() != null) {
+                deal = existingDeals.get(request.getId());
+                if (deal == null) {
+                    results.add(failed(result, "Deal not found by id: " + request.getId()));
+                    continue;
+                }
+                applyChanges(deal, request, modifyDate);
+                updatedIds.add(deal.getId());
+                result.status(DealBatchSaveResultDTO.Status.UPDATED);
+            } else {
+                if (!draftStatusActive) {
+                    results.add(failed(result, "Статус DRAFT не найден"));
+                    continue;
+                }
+                deal = new Deal();
+                deal.setStatusId("DRAFT");
+                applyChanges(deal, request, modifyDate);
+                deal = dealRepository.save(deal);
+                result.id(deal.getId()).status(DealBatchSaveResultDTO.Status.CREATED);
+            }
+
+            savedIds.add(deal.getId());
+            results.add(result.build());
+        }
+
+        if (!savedIds.isEmpty()) {
+            dealSearchViewService.refreshDeals(savedIds);
+            dealSearchCacheService.invalidate();
+            readYourWritesService.recordWrite();
+            dealCacheService.evictAll(updatedIds);
+        }
+
+        log.info("Batch of {} deals saved: {}", requests.size(), results.stream()
+                .collect(Collectors.groupingBy(DealBatchSaveResultDTO::getStatus, Collectors.counting())));
+
+        return results;
 
     }
 
     /**
      * Изменяет статус сделки.
+     * Итоговый DTO сделки после коммита записывается в кэш сделок, если там нет более новой версии.
      *
      * @param id       идентификатор сделки
      * @param statusId идентификатор нового статуса
@@ -116,7 +320,6 @@ public class DealServiceImpl implements DealService {
      * @throws EntityNotFoundException если сделка или статус не найдены
      */
     @Transactional
-    @CacheEvict(cacheNames = "deals", key = "#id")
     public DealDTO changeStatus(UUID id, String statusId) {
 
         log.info("Changing deal status for id: {}", id);
@@ -124,106 +327,683 @@ public class DealServiceImpl implements DealService {
         Deal deal = dealRepository.findByIdAndIsActiveTrue(id)
                 .orElseThrow(() -> new EntityNotFoundException("Deal not found with id: " + id));
 
-        dealStatusRepository.findByIdAndIsActiveTrue(statusId)
+        referenceDataSnapshot.findActiveDealStatus(statusId)
                 .orElseThrow(() -> new EntityNotFoundException("Deal status not found: " + statusId));
 
         deal.setStatusId(statusId);
         deal.setModifyDate(LocalDateTime.now());
 
         dealRepository.save(deal);
+        dealSearchViewService.refreshDeal(deal.getId());
+        dealSearchCacheService.invalidate();
+        readYourWritesService.recordWrite();
+
+        DealDTO changed = getDealById(deal.getId());
+        dealCacheService.put(changed, deal.getModifyDate());
 
-        return getDealById(deal.getId());
+        return changed;
 
     }
 
+    private void applyChanges(Deal deal, DealSaveDTO request, LocalDateTime modifyDate) {
+        deal.setDescription(request.getDescription());
+        deal.setAgreementNumber(request.getAgreementNumber());
+        deal.setAgreementDate(request.getAgreementDate());
+        deal.setAgreementStartDate(request.getAgreementStartDate());
+        deal.setAvailabilityDate(request.getAvailabilityDate());
+        deal.setCloseDt(request.getCloseDt());
+        deal.setModifyDate(modifyDate);
+        deal.setTypeId(request.getTypeId());
+    }
+
+    private DealBatchSaveResultDTO failed(DealBatchSaveResultDTO.DealBatchSaveResultDTOBuilder result, String error) {
+        return result.status(DealBatchSaveResultDTO.Status.FAILED)
+                .error(error)
+                .build();
+    }
+
     /**
      * Получает сделку по идентификатору со всеми связанными данными.
+     * Сделка с типом, статусом, основной суммой и контрагентами с ролями выбирается одним SQL-запросом
+     * в плоскую проекцию, без догрузки ленивых коллекций.
+     * При промахе кэша параллельные запросы одной сделки объединяются: загрузку выполняет один из них.
+     * Выполняется в read-only транзакции; результат попадает в общий кэш "deals", поэтому
+     * читается с основной БД, а не с реплики, которая может еще не получить последнее изменение.
      * @AuditLog - аннотация для логирования методов и http запросов
      *
      * @param id идентификатор сделки
      * @return DTO сделки с полной информацией
      * @throws EntityNotFoundException если сделка не найдена
      */
-    @Transactional
-    @Cacheable(cacheNames = "deals", key = "#id")
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = "deals", key = "#id", sync = true)
     public DealDTO getDealById(UUID id) {
         log.info("Getting deal by id: {}", id);
 
-        Deal deal = dealRepository.findActiveByDealIdWithBasicDetails(id)
+        return readYourWritesService.readFromPrimary(() -> dealRepository.findAggregateById(id))
+                .map(mappingService::mapToDTO)
+                .map(DealServiceImpl::withETag)
                 .orElseThrow(() -> new EntityNotFoundException("Deal not found with id: " + id));
+    }
+
+    /**
+     * Получает несколько сделок по идентификаторам.
+     * Закэшированные сделки читаются из кэша "deals" одной командой Redis MGET, промахи выбираются
+     * одним запросом в плоскую проекцию (как в getDealById) в read-only транзакции на основной БД и одним конвейером
+     * записываются обратно в кэш. Несуществующие и неактивные сделки в ответ не попадают.
+     *
+     * @param ids идентификаторы сделок
+     * @return найденные сделки в порядке идентификаторов запроса
+     */
+    public List<DealDTO> getDealsByIds(List<UUID> ids) {
+        log.info("Getting {} deals by ids", ids.size());
+
+        List<UUID> distinctIds = ids.stream().distinct().toList();
+        Map<UUID, DealDTO> deals = dealCacheService.getAll(distinctIds);
 
-        dealRepository.findByDealIdWithContractors(id);
+        List<UUID> misses = distinctIds.stream()
+                .filter(id -> !deals.containsKey(id))
+                .toList();
 
-        if (deal != null) {
-            dealRepository.findByDealIdWithSums(id);
+        if (!misses.isEmpty()) {
+            List<DealDTO> loaded = readYourWritesService.readFromPrimary(() -> readOnlyTransaction.execute(status ->
+                    dealRepository.findAggregatesByIds(misses).stream()
+                            .map(mappingService::mapToDTO)
+                            .map(DealServiceImpl::withETag)
+                            .toList()));
+
+            loaded.forEach(deal -> deals.put(deal.getId(), deal));
+            dealCacheService.putAll(loaded);
         }
 
-        return mappingService.mapToDTO(deal);
+        log.debug("Deals by ids: {} requested, {} cache misses", distinctIds.size(), misses.size());
+
+        return ids.stream()
+                .map(deals::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     /**
      * Осуществляет поиск сделок по заданным критериям с пагинацией и сортировкой.
+     * Путь чтения выбирается настройкой dealmicroservice.search.read-path:
+     * entity - через управляемые сущности Deal с догрузкой сумм и контрагентов,
+     * projection - одним запросом в плоскую проекцию без сущностей,
+     * view - по денормализованной модели чтения deal_search_view без соединений.
+     * Сортировка по релевантности полнотекстового поиска (sortBy = relevance) всегда выполняется
+     * скомпилированным запросом через сущности.
+     * Общее количество определяется режимом count_mode из запроса:
+     * exact - точный COUNT (пропускается, если страница неполная), cached - точный COUNT из кэша по фильтру,
+     * estimated - оценка планировщика PostgreSQL, none - без подсчета, результатом будет Slice.
+     * Результат кэшируется по нормализованному фильтру до ближайшего изменения сделок или контрагентов.
+     * Read-only транзакция открывается только при промахе кэша, попадание не занимает соединение с БД.
+     * Метрики поиска в БД (без попаданий в кэш):
+     * таймер deal.search с гистограммой и тегами path, sort, size_bucket, count_mode и outcome,
+     * таймер deal.search.shape без гистограммы с тегами shape (битовая маска фильтров DealSearchFilter) и outcome,
+     * а также распределения deal.search.rows (строк на странице) и deal.search.total (всего найдено,
+     * кроме режима none) с тегом shape. Неудачные поиски учитываются в таймерах с outcome=error.
      *
      * @param request DTO с параметрами поиска, пагинации и сортировки
-     * @return страница с результатами поиска
+     * @return страница с результатами поиска; общее количество не заполняется в режиме подсчета none
      */
-    @Transactional
-    public Page<DealDTO> searchDeals(DealSearchDTO request) {
+    public DealSearchPageDTO searchDeals(DealSearchDTO request) {
 
         log.info("Searching deals with criteria: {}", request);
 
-        Sort sort = Sort.by(
+        String readPath = relevanceSort(request) ? READ_PATH_ENTITY : switch (searchReadPath.toLowerCase(Locale.ROOT)) {
+            case READ_PATH_VIEW -> READ_PATH_VIEW;
+            case READ_PATH_PROJECTION -> READ_PATH_PROJECTION;
+            default -> READ_PATH_ENTITY;
+        };
+
+        Pageable pageable = PageRequest.of(request.getPage(), request.getSize(), buildSort(request));
+
+        return toSearchPage(dealSearchCacheService.getOrLoad(request, pageable,
+                () -> readOnlyTransaction.execute(status -> searchDealsTimed(request, pageable, readPath))));
+
+    }
+
+    /**
+     * Вычисляет ETag сделки один раз при загрузке из БД: он кэшируется вместе с DTO
+     */
+    private static DealDTO withETag(DealDTO deal) {
+        deal.setEtag(ETagUtils.of(deal));
+        return deal;
+    }
+
+    /**
+     * Ответ поиска одной формы для всех режимов подсчета: для Slice (режим none) общее количество не заполняется
+     */
+    private static DealSearchPageDTO toSearchPage(Slice<DealDTO> slice) {
+
+        Page<DealDTO> page = slice instanceof Page<DealDTO> counted ? counted : null;
+
+        return DealSearchPageDTO.builder()
+                .content(slice.getContent())
+                .page(DealSearchPageDTO.PageMetadata.builder()
+                        .size(slice.getSize())
+                        .number(slice.getNumber())
+                        .totalElements(page != null ? page.getTotalElements() : null)
+                        .totalPages(page != null ? page.getTotalPages() : null)
+                        .build())
+                .hasNext(slice.hasNext())
+                .build();
+    }
+
+    /**
+     * Выполняет поиск выбранным путем чтения и фиксирует метрики по форме запроса
+     */
+    private Slice<DealDTO> searchDealsTimed(DealSearchDTO request, Pageable pageable, String readPath) {
+
+        String shape = DealSearchFilter.shapeTag(request);
+        String countMode = countMode(request);
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = SEARCH_OUTCOME_ERROR;
+        Slice<DealDTO> result;
+
+        try {
+            result = switch (readPath) {
+                case READ_PATH_VIEW -> searchDealView(request, pageable, countMode);
+                case READ_PATH_PROJECTION -> searchDealProjections(request, pageable, countMode);
+                default -> searchDealEntities(request, pageable, countMode);
+            };
+            outcome = SEARCH_OUTCOME_SUCCESS;
+        } finally {
+            long duration = sample.stop(Timer.builder("deal.search")
+                    .description("Время поиска сделок")
+                    .tag("path", readPath)
+                    .tag("sort", request.getSortBy())
+                    .tag("size_bucket", sizeBucket(request.getSize()))
+                    .tag("count_mode", countMode)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+
+            Timer.builder("deal.search.shape")
+                    .description("Время поиска сделок по набору заданных фильтров")
+                    .tag("shape", shape)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(duration, TimeUnit.NANOSECONDS);
+        }
+
+        DistributionSummary.builder("deal.search.rows")
+                .description("Количество сделок на странице результата поиска")
+                .tag("shape", shape)
+                .register(meterRegistry)
+                .record(result.getNumberOfElements());
+
+        if (result instanceof Page<DealDTO> page) {
+            DistributionSummary.builder("deal.search.total")
+                    .description("Общее количество сделок, найденных поиском")
+                    .tag("shape", shape)
+                    .register(meterRegistry)
+                    .record(page.getTotalElements());
+        }
+
+        return result;
+
+    }
+
+    /**
+     * Поиск через сущности: страница Deal, подсчет, догрузка сумм и контрагентов.
+     * При dealmicroservice.search.compiled-queries=true страница и подсчет выбираются
+     * параметризованным JPQL-шаблоном формы запроса (DealSearchQueryCompiler), иначе - через Criteria API.
+     */
+    private Slice<DealDTO> searchDealEntities(DealSearchDTO request, Pageable pageable, String countMode) {
+
+        Slice<Deal> dealSlice;
+        LongSupplier exactCount;
+
+        if (compiledQueries || relevanceSort(request)) {
+            DealSearchQuery query = compile(request);
+
+            List<Deal> deals = dealRepository.findPage(query, pageable.getOffset(), pageable.getPageSize() + 1);
+            dealSlice = toSlice(deals, pageable);
+            exactCount = () -> dealRepository.count(query);
+        } else {
+            Specification<Deal> specification = DealSpecification.buildSpecification(request);
+
+            dealSlice = dealRepository.findBy(specification, query -> query
+                    .sortBy(pageable.getSort())
+                    .slice(pageable));
+            exactCount = () -> dealRepository.count(specification);
+        }
+
+        Set<UUID> dealIds = dealSlice.getContent().stream()
+                .map(Deal::getId)
+                .collect(Collectors.toSet());
+
+        loadFullDealInformation(dealSlice.getContent(), dealIds);
+        Map<UUID, List<RoleDTO>> rolesByContractorId = loadContractorRoles(dealSlice.getContent());
+
+        List<DealDTO> dealDTOs = dealSlice.getContent().stream()
+                .map(deal -> mappingService.mapToDTO(deal, rolesByContractorId))
+                .collect(Collectors.toList());
+
+        return withTotal(request, countMode, new SliceImpl<>(dealDTOs, pageable, dealSlice.hasNext()), exactCount);
+
+    }
+
+    /**
+     * Поиск через проекцию: один запрос на страницу (основная сумма и контрагенты агрегируются в SQL)
+     * и подсчет, который пропускается, если страница неполная
+     */
+    private Slice<DealDTO> searchDealProjections(DealSearchDTO request, Pageable pageable, String countMode) {
+
+        Specification<Deal> specification = DealSpecification.buildSpecification(request);
+
+        List<DealDTO> dealDTOs = dealRepository.findProjections(
+                        specification,
+                        DealSortField.of(request.getSortBy()),
+                        "DESC".equalsIgnoreCase(request.getSortDirection()),
+                        pageable.getOffset(),
+                        pageable.getPageSize() + 1
+                ).stream()
+                .map(mappingService::mapToDTO)
+                .collect(Collectors.toList());
+
+        return withTotal(request, countMode, toSlice(dealDTOs, pageable), () -> dealRepository.count(specification));
+
+    }
+
+    /**
+     * Поиск по модели чтения deal_search_view: фильтрация, сортировка и подсчет по одной таблице,
+     * контрагенты берутся из сохраненного в строке JSON
+     */
+    private Slice<DealDTO> searchDealView(DealSearchDTO request, Pageable pageable, String countMode) {
+
+        Sort.Direction direction = "DESC".equalsIgnoreCase(request.getSortDirection()) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Pageable viewPageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                Sort.by(direction, DealSortField.of(request.getSortBy()).getAttribute()));
+
+        Specification<DealSearchView> specification = DealSpecification.buildSearchViewSpecification(request);
+
+        Slice<DealSearchView> viewSlice = dealSearchViewRepository.findBy(specification, query -> query
+                .sortBy(viewPageable.getSort())
+                .slice(viewPageable));
+
+        List<DealDTO> dealDTOs = viewSlice.getContent().stream()
+                .map(mappingService::mapToDTO)
+                .collect(Collectors.toList());
+
+        return withTotal(request, countMode, new SliceImpl<>(dealDTOs, pageable, viewSlice.hasNext()),
+                () -> dealSearchViewRepository.count(specification));
+
+    }
+
+    /**
+     * Дополняет срез результатов общим количеством в соответствии с режимом подсчета.
+     * Для неполной страницы количество известно без запроса, как в PageableExecutionUtils.
+     * Оценка планировщика может быть меньше фактического числа строк,
+     * поэтому она не опускается ниже количества уже отданных сделок (и одной следующей, если она есть).
+     */
+    private Slice<DealDTO> withTotal(DealSearchDTO request, String countMode, Slice<DealDTO> slice, LongSupplier exactCount) {
+
+        Pageable pageable = slice.getPageable();
+        long seen = pageable.getOffset() + slice.getNumberOfElements();
+
+        return switch (countMode) {
+            case COUNT_MODE_NONE -> slice;
+            case COUNT_MODE_ESTIMATED -> new PageImpl<>(slice.getContent(), pageable, slice.hasNext()
+                    ? Math.max(dealRepository.estimateCount(compile(request)), seen + 1)
+                    : seen);
+            case COUNT_MODE_CACHED -> PageableExecutionUtils.getPage(slice.getContent(), pageable,
+                    () -> dealSearchCacheService.getOrCount(request, exactCount));
+            default -> PageableExecutionUtils.getPage(slice.getContent(), pageable, exactCount);
+        };
+
+    }
+
+    /**
+     * Срез из выборки размером size + 1: лишняя строка только показывает наличие следующей страницы
+     */
+    private static <T> Slice<T> toSlice(List<T> rows, Pageable pageable) {
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    private static DealSearchQuery compile(DealSearchDTO request) {
+        return DealSearchQueryCompiler.compile(request,
+                DealSortField.of(request.getSortBy()), "DESC".equalsIgnoreCase(request.getSortDirection()));
+    }
+
+    private static boolean relevanceSort(DealSearchDTO request) {
+        return DealSortField.RELEVANCE.getSortBy().equals(request.getSortBy());
+    }
+
+    private static String countMode(DealSearchDTO request) {
+        return switch (Objects.toString(request.getCountMode(), COUNT_MODE_EXACT).toLowerCase(Locale.ROOT)) {
+            case COUNT_MODE_CACHED -> COUNT_MODE_CACHED;
+            case COUNT_MODE_ESTIMATED -> COUNT_MODE_ESTIMATED;
+            case COUNT_MODE_NONE -> COUNT_MODE_NONE;
+            default -> COUNT_MODE_EXACT;
+        };
+    }
+
+    private Sort buildSort(DealSearchDTO request) {
+        return Sort.by(
                 "DESC".equalsIgnoreCase(request.getSortDirection()) ? Sort.Direction.DESC : Sort.Direction.ASC,
                 request.getSortBy()
         );
+    }
+
+    /**
+     * Осуществляет поиск сделок с keyset-пагинацией.
+     * Вместо OFFSET используется условие "после позиции курсора" по (sortBy, id),
+     * запрос выбирает size + 1 строку для определения наличия следующей страницы,
+     * поэтому COUNT не выполняется и стоимость любой страницы равна стоимости первой.
+     *
+     * @param request DTO с параметрами поиска, сортировки и курсором предыдущей страницы
+     * @return страница с результатами поиска и курсором следующей страницы
+     * @throws InvalidSearchCursorException если курсор поврежден или не соответствует сортировке запроса,
+     *                                      либо запрошена сортировка по релевантности
+     */
+    @Transactional(readOnly = true)
+    public DealCursorPageDTO searchDealsByCursor(DealSearchDTO request) {
+
+        log.info("Searching deals by cursor with criteria: {}", request);
+
+        DealSortField sortField = DealSortField.of(request.getSortBy());
+        boolean descending = "DESC".equalsIgnoreCase(request.getSortDirection());
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+
+        if (sortField == DealSortField.RELEVANCE) {
+            throw new InvalidSearchCursorException("Сортировка по релевантности не поддерживается keyset-пагинацией");
+        }
 
         Specification<Deal> specification = DealSpecification.buildSpecification(request);
 
-        Pageable pageable = PageRequest.of(request.getPage(), request.getSize(), sort);
+        if (request.getCursor() != null && !request.getCursor().isBlank()) {
+            DealSearchCursor cursor = DealSearchCursor.decode(request.getCursor());
 
-        Page<Deal> dealPage = dealRepository.findAll(
-                specification,
-                pageable
-        );
+            if (cursor.getSortField() != sortField || cursor.isDescending() != descending) {
+                throw new InvalidSearchCursorException("Курсор не соответствует сортировке запроса");
+            }
+
+            specification = specification.and(DealSpecification.buildKeysetSpecification(cursor));
+        }
+
+        Sort sort = sortField == DealSortField.ID
+                ? Sort.by(direction, "id")
+                : Sort.by(direction, sortField.getAttribute()).and(Sort.by(direction, "id"));
+
+        int size = request.getSize();
+
+        List<Deal> deals = dealRepository.findBy(specification, query -> query
+                .sortBy(sort)
+                .limit(size + 1)
+                .all());
+
+        boolean hasNext = deals.size() > size;
+        if (hasNext) {
+            deals = deals.subList(0, size);
+        }
 
-        Set<UUID> dealIds = dealPage.getContent().stream()
+        Set<UUID> dealIds = deals.stream()
                 .map(Deal::getId)
                 .collect(Collectors.toSet());
 
-        loadFullDealInformation(dealPage.getContent(), dealIds);
+        loadFullDealInformation(deals, dealIds);
+        Map<UUID, List<RoleDTO>> rolesByContractorId = loadContractorRoles(deals);
 
-        List<DealDTO> dealDTOs = dealPage.getContent().stream()
-                .map(mappingService::mapToDTO)
+        List<DealDTO> dealDTOs = deals.stream()
+                .map(deal -> mappingService.mapToDTO(deal, rolesByContractorId))
                 .collect(Collectors.toList());
 
-        return new PageImpl<>(dealDTOs, pageable, dealPage.getTotalElements());
+        String nextCursor = hasNext
+                ? DealSearchCursor.after(deals.getLast(), sortField, descending).encode()
+                : null;
+
+        return DealCursorPageDTO.builder()
+                .content(dealDTOs)
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+
+    }
+
+    /**
+     * Выгружает все найденные сделки в формате NDJSON (одна сделка в строке).
+     * Идентификаторы читаются серверным курсором БД с fetch size, равным размеру порции,
+     * сделки догружаются и сериализуются порциями по dealmicroservice.search.stream.chunk-size,
+     * после каждой порции поток сбрасывается клиенту, а контекст персистентности очищается,
+     * поэтому потребление памяти не зависит от количества найденных сделок.
+     * Параметры пагинации и курсор запроса не учитываются.
+     *
+     * @param request      DTO с параметрами поиска и сортировки
+     * @param outputStream поток ответа
+     * @throws UncheckedIOException если клиент разорвал соединение
+     */
+    @Transactional(readOnly = true)
+    public void streamDeals(DealSearchDTO request, OutputStream outputStream) {
+
+        log.info("Streaming deals with criteria: {}", request);
+
+        Specification<Deal> specification = DealSpecification.buildSpecification(request);
+        DealSortField sortField = DealSortField.of(request.getSortBy());
+        boolean descending = "DESC".equalsIgnoreCase(request.getSortDirection());
+
+        long streamed = 0;
+
+        try (Stream<UUID> ids = dealRepository.streamIds(specification, sortField, descending, streamChunkSize)) {
+            Iterator<UUID> iterator = ids.iterator();
+            Set<UUID> chunk = new LinkedHashSet<>();
+
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+
+                if (chunk.size() == streamChunkSize || !iterator.hasNext()) {
+                    writeChunk(chunk, outputStream);
+                    streamed += chunk.size();
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        log.info("Streamed {} deals", streamed);
+
+    }
+
+    /**
+     * Подсчитывает сделки, подходящие под фильтры поиска, по статусам, типам и валютам основной суммы.
+     * Выполняется один запрос с группировкой по всем трем измерениям, количества по каждому
+     * измерению суммируются из его строк. Результат кэшируется по нормализованному фильтру
+     * до ближайшего изменения сделок или контрагентов; пагинация и сортировка запроса не учитываются.
+     *
+     * @param request DTO с параметрами поиска
+     * @return количество сделок по значениям каждого фасета, по убыванию количества
+     */
+    public DealFacetsDTO getFacets(DealSearchDTO request) {
+
+        log.info("Counting deal facets with criteria: {}", request);
+
+        return dealSearchCacheService.getOrLoadFacets(request, () -> {
+            List<DealFacetProjection> rows = readOnlyTransaction.execute(status ->
+                    dealRepository.findFacets(DealSpecification.buildSpecification(request)));
+
+            return DealFacetsDTO.builder()
+                    .total(rows.stream().mapToLong(DealFacetProjection::getCount).sum())
+                    .statuses(facetCounts(rows, DealFacetProjection::getStatusId))
+                    .types(facetCounts(rows, DealFacetProjection::getTypeId))
+                    .sumCurrencies(facetCounts(rows, DealFacetProjection::getCurrencyId))
+                    .build();
+        });
+
+    }
+
+    /**
+     * Суммирует сгруппированные строки по одному измерению
+     */
+    private static List<DealFacetCountDTO> facetCounts(List<DealFacetProjection> rows,
+                                                       Function<DealFacetProjection, String> dimension) {
+
+        Map<String, Long> counts = new HashMap<>();
+        rows.forEach(row -> counts.merge(dimension.apply(row), row.getCount(), Long::sum));
+
+        return counts.entrySet().stream()
+                .map(entry -> new DealFacetCountDTO(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparing(DealFacetCountDTO::getCount).reversed()
+                        .thenComparing(DealFacetCountDTO::getValue, Comparator.nullsLast(Comparator.naturalOrder())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Догружает порцию сделок с суммами, контрагентами и ролями, пишет ее в поток в порядке курсора
+     * и отсоединяет прочитанные сущности от контекста персистентности
+     */
+    private void writeChunk(Set<UUID> dealIds, OutputStream outputStream) throws IOException {
+
+        Map<UUID, Deal> dealMap = dealRepository.findDealsWithSums(dealIds).stream()
+                .collect(Collectors.toMap(Deal::getId, Function.identity()));
+        mergeContractors(dealMap, dealRepository.findDealsWithContractors(dealIds));
+
+        List<Deal> deals = dealIds.stream()
+                .map(dealMap::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        Map<UUID, List<RoleDTO>> rolesByContractorId = loadContractorRoles(deals);
+
+        for (Deal deal : deals) {
+            outputStream.write(objectMapper.writeValueAsBytes(mappingService.mapToDTO(deal, rolesByContractorId)));
+            outputStream.write('\n');
+        }
+
+        outputStream.flush();
+        entityManager.clear();
 
     }
 
     /**
      * Загружает полную информацию о сделках, суммы и контрагентов.
+     * При dealmicroservice.search.parallel-hydration=true суммы читаются на виртуальном потоке в собственной
+     * read-only транзакции одновременно с контрагентами в транзакции вызывающего.
+     * Время догрузки фиксируется в таймере deal.search.hydration с тегами mode и size_bucket.
      */
     private void loadFullDealInformation(List<Deal> deals, Set<UUID> dealIds) {
 
+        if (dealIds.isEmpty()) {
+            return;
+        }
+
         Map<UUID, Deal> dealMap = deals.stream()
                 .collect(Collectors.toMap(Deal::getId, Function.identity()));
 
-        List<Deal> dealsWithSums = dealRepository.findDealsWithSums(dealIds);
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        boolean parallel = parallelHydration && loadSumsAndContractorsInParallel(dealMap, dealIds);
+        if (!parallel) {
+            mergeSums(dealMap, dealRepository.findDealsWithSums(dealIds));
+            mergeContractors(dealMap, dealRepository.findDealsWithContractors(dealIds));
+        }
+
+        sample.stop(Timer.builder("deal.search.hydration")
+                .description("Время догрузки сумм и контрагентов для страницы поиска")
+                .tag("mode", parallel ? HYDRATION_PARALLEL : HYDRATION_SEQUENTIAL)
+                .tag("size_bucket", sizeBucket(dealIds.size()))
+                .register(meterRegistry));
+
+    }
+
+    /**
+     * Параллельная догрузка: суммы читаются на виртуальном потоке, контрагенты - в текущей транзакции,
+     * поэтому поиск занимает не больше двух соединений. Рабочая транзакция маршрутизируется в ту же БД,
+     * что и текущая (основная или реплика), чтобы страница не собиралась из двух источников.
+     * Ленивые роли контрагентов здесь не нужны - они подгружаются пакетно в loadContractorRoles.
+     *
+     * @return false, если исполнитель исчерпал лимит задач и догрузку нужно выполнить последовательно
+     */
+    private boolean loadSumsAndContractorsInParallel(Map<UUID, Deal> dealMap, Set<UUID> dealIds) {
+
+        boolean pinnedToPrimary = readYourWritesService.isPinnedToPrimary();
+
+        CompletableFuture<List<Deal>> sums;
+        try {
+            sums = CompletableFuture.supplyAsync(
+                    () -> readYourWritesService.callPinned(pinnedToPrimary,
+                            () -> readOnlyTransaction.execute(status -> dealRepository.findDealsWithSums(dealIds))),
+                    dealHydrationExecutor);
+        } catch (RejectedExecutionException e) {
+            log.debug("Parallel hydration limit reached, loading {} deals sequentially", dealIds.size());
+            return false;
+        }
+
+        mergeContractors(dealMap, dealRepository.findDealsWithContractors(dealIds));
+
+        try {
+            mergeSums(dealMap, sums.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+
+        return true;
+    }
+
+    /**
+     * Пакетно загружает активные роли всех контрагентов страницы одним запросом.
+     * Запрос выбирает только пары (контрагент, роль), а сами роли берутся из справочника в памяти,
+     * поэтому количество запросов не зависит от числа сделок и контрагентов на странице.
+     */
+    private Map<UUID, List<RoleDTO>> loadContractorRoles(List<Deal> deals) {
+
+        Set<UUID> contractorIds = deals.stream()
+                .filter(deal -> deal.getContractors() != null)
+                .flatMap(deal -> deal.getContractors().stream())
+                .map(DealContractor::getId)
+                .collect(Collectors.toSet());
+
+        if (contractorIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<UUID, List<RoleDTO>> rolesByContractorId = new HashMap<>();
+
+        for (ContractorRoleLink link : contractorToRoleRepository.findActiveRoleLinks(contractorIds)) {
+            ContractorRole role = referenceDataSnapshot.getContractorRole(link.getRoleId());
+            if (role != null) {
+                rolesByContractorId.computeIfAbsent(link.getContractorId(), id -> new ArrayList<>())
+                        .add(mappingService.mapRoleToDTO(role));
+            }
+        }
+
+        return rolesByContractorId;
+
+    }
+
+    private void mergeSums(Map<UUID, Deal> dealMap, List<Deal> dealsWithSums) {
         dealsWithSums.forEach(dealWithSums -> {
             Deal originalDeal = dealMap.get(dealWithSums.getId());
             if (originalDeal != null) {
                 originalDeal.setSums(dealWithSums.getSums());
             }
         });
+    }
 
-        List<Deal> dealsWithContractors = dealRepository.findDealsWithContractors(dealIds);
+    private void mergeContractors(Map<UUID, Deal> dealMap, List<Deal> dealsWithContractors) {
         dealsWithContractors.forEach(dealWithContractors -> {
             Deal originalDeal = dealMap.get(dealWithContractors.getId());
             if (originalDeal != null) {
                 originalDeal.setContractors(dealWithContractors.getContractors());
             }
         });
+    }
 
+    private static String sizeBucket(int rows) {
+        if (rows <= 10) {
+            return "1-10";
+        }
+        if (rows <= 50) {
+            return "11-50";
+        }
+        return "51-100";
     }
 
 }
@@ -5,10 +5,13 @@ import io.github.dealmicroservice.model.dto.DealStatusDTO;
 import io.github.dealmicroservice.model.entity.DealStatus;
 import io.github.dealmicroservice.repository.DealStatusRepository;
 import io.github.dealmicroservice.service.DealStatusService;
+import io.github.dealmicroservice.service.ETagUtils;
+import io.github.dealmicroservice.service.ReadYourWritesService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -18,30 +21,40 @@ public class DealStatusServiceImpl implements DealStatusService {
 
     private final DealStatusRepository dealStatusRepository;
     private final DealStatusMapping dealStatusMapping;
+    private final ReadYourWritesService readYourWritesService;
 
     private final Logger log = LogManager.getLogger(DealStatusServiceImpl.class);
 
     public DealStatusServiceImpl(DealStatusRepository dealStatusRepository,
-                                 DealStatusMapping dealStatusMapping) {
+                                 DealStatusMapping dealStatusMapping,
+                                 ReadYourWritesService readYourWritesService) {
         this.dealStatusRepository = dealStatusRepository;
         this.dealStatusMapping = dealStatusMapping;
+        this.readYourWritesService = readYourWritesService;
     }
 
     /**
      * Получает все активные статусы сделок.
-     * Кэширует результат на 1 час.
+     * Кэширует результат на 1 час; кэш общий, поэтому статусы читаются с основной БД.
      */
     @Override
+    @Transactional(readOnly = true)
     @Cacheable(cacheNames = "deal_metadata", key = "'deal_statuses'", cacheManager = "dealMetadataCacheManager")
     public List<DealStatusDTO> getAllDealStatuses() {
 
         log.info("Getting all deal statuses from database");
 
-        List<DealStatus> dealStatuses = dealStatusRepository.findAllByIsActiveTrue();
+        List<DealStatus> dealStatuses = readYourWritesService.readFromPrimary(dealStatusRepository::findAllByIsActiveTrue);
 
         return dealStatuses.stream()
                 .map(dealStatusMapping::mapToDTO)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Cacheable(cacheNames = "deal_metadata", key = "'deal_statuses_etag'", cacheManager = "dealMetadataCacheManager")
+    public String getDealStatusesETag(List<DealStatusDTO> dealStatuses) {
+        return ETagUtils.of(dealStatuses);
+    }
+
 }
@@ -4,11 +4,17 @@ import io.github.dealmicroservice.mapping.DealTypeMapping;
 import io.github.dealmicroservice.model.dto.DealTypeDTO;
 import io.github.dealmicroservice.model.entity.DealType;
 import io.github.dealmicroservice.repository.DealTypeRepository;
+import io.github.dealmicroservice.service.DealSearchCacheService;
+import io.github.dealmicroservice.service.DealSearchViewService;
 import io.github.dealmicroservice.service.DealTypeService;
+import io.github.dealmicroservice.service.ETagUtils;
+import io.github.dealmicroservice.service.ReadYourWritesService;
+import io.github.dealmicroservice.service.ReferenceDataSnapshot;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,25 +27,37 @@ public class DealTypeServiceImpl implements DealTypeService {
 
     private final DealTypeRepository dealTypeRepository;
     private final DealTypeMapping dealTypeMapping;
+    private final DealSearchViewService dealSearchViewService;
+    private final DealSearchCacheService dealSearchCacheService;
+    private final ReferenceDataSnapshot referenceDataSnapshot;
+    private final ReadYourWritesService readYourWritesService;
 
     private final Logger log = LogManager.getLogger(DealTypeServiceImpl.class);
 
-    public DealTypeServiceImpl(DealTypeRepository dealTypeRepository, DealTypeMapping dealTypeMapping) {
+    public DealTypeServiceImpl(DealTypeRepository dealTypeRepository, DealTypeMapping dealTypeMapping,
+                               DealSearchViewService dealSearchViewService, DealSearchCacheService dealSearchCacheService,
+                               ReferenceDataSnapshot referenceDataSnapshot, ReadYourWritesService readYourWritesService) {
         this.dealTypeRepository = dealTypeRepository;
         this.dealTypeMapping = dealTypeMapping;
+        this.dealSearchViewService = dealSearchViewService;
+        this.dealSearchCacheService = dealSearchCacheService;
+        this.referenceDataSnapshot = referenceDataSnapshot;
+        this.readYourWritesService = readYourWritesService;
     }
 
     /**
      * Получает все активные типы сделок.
-     * Кэширует результат на 1 час.
+     * Кэширует результат на 1 час; кэш общий и сбрасывается при сохранении типа,
+     * поэтому типы читаются с основной БД, а не с отстающей реплики.
      */
     @Override
+    @Transactional(readOnly = true)
     @Cacheable(cacheNames = "deal_metadata", key = "'deal_types'", cacheManager = "dealMetadataCacheManager")
     public List<DealTypeDTO> getAllDealTypes() {
 
         log.info("Getting all deal types from database");
 
-        List<DealType> dealTypes = dealTypeRepository.findAllByIsActiveTrue();
+        List<DealType> dealTypes = readYourWritesService.readFromPrimary(dealTypeRepository::findAllByIsActiveTrue);
 
         return dealTypes.stream()
                 .map(dealTypeMapping::mapToDTO)
@@ -47,13 +65,24 @@ public class DealTypeServiceImpl implements DealTypeService {
 
     }
 
+    @Override
+    @Cacheable(cacheNames = "deal_metadata", key = "'deal_types_etag'", cacheManager = "dealMetadataCacheManager")
+    public String getDealTypesETag(List<DealTypeDTO> dealTypes) {
+        return ETagUtils.of(dealTypes);
+    }
+
     /**
      * Сохраняет/обновляет имя типа сделки.
-     * Очищает кэш справочников после сохранения.
+     * Очищает кэш справочников (список типов и его ETag) после сохранения и после коммита обновляет снимок справочников в памяти.
+     * Имя типа денормализовано в модель чтения поиска, поэтому строки сделок этого типа пересчитываются
+     * в фоне после коммита.
      */
     @Override
     @Transactional
-    @CacheEvict(cacheNames = "deal_metadata", key = "'deal_types'", cacheManager = "dealMetadataCacheManager")
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "deal_metadata", key = "'deal_types'", cacheManager = "dealMetadataCacheManager"),
+            @CacheEvict(cacheNames = "deal_metadata", key = "'deal_types_etag'", cacheManager = "dealMetadataCacheManager")
+    })
     public DealTypeDTO saveDealType(DealTypeDTO dealTypeDTO) {
 
         if (dealTypeDTO.getId() == null) {
@@ -76,6 +105,10 @@ public class DealTypeServiceImpl implements DealTypeService {
         }
 
         DealType saved = dealTypeRepository.save(dealType);
+        dealSearchViewService.refreshDealsByType(saved.getId());
+        dealSearchCacheService.invalidate();
+        referenceDataSnapshot.refreshDealTypes();
+        readYourWritesService.recordWrite();
 
         log.info("Deal type saved: {}", saved.getId());
 
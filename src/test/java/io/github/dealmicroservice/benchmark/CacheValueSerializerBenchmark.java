@@ -0,0 +1,128 @@
+package io.github.dealmicroservice.benchmark;
+
+import io.github.dealmicroservice.config.CacheValueSerializer;
+import io.github.dealmicroservice.model.dto.DealContractorDTO;
+import io.github.dealmicroservice.model.dto.DealDTO;
+import io.github.dealmicroservice.model.dto.DealStatusDTO;
+import io.github.dealmicroservice.model.dto.DealSumDTO;
+import io.github.dealmicroservice.model.dto.DealTypeDTO;
+import io.github.dealmicroservice.model.dto.RoleDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение форматов значений кэша Redis на DealDTO с контрагентами и ролями:
+ * время сериализации и десериализации для json (текущий формат) и smile, без сжатия и со сжатием LZ4.
+ * Размер сериализованной сделки печатается при подготовке каждой комбинации параметров.
+ * Запуск:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=io.github.dealmicroservice.benchmark.CacheValueSerializerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheValueSerializerBenchmark {
+
+    private static final List<String> ROLES = List.of("BORROWER", "WARRANTY", "GARANT");
+
+    @Param({"json", "smile"})
+    private String codec;
+
+    @Param({"0", "512"})
+    private int compressionThreshold;
+
+    @Param({"3", "30"})
+    private int contractors;
+
+    private CacheValueSerializer serializer;
+    private DealDTO deal;
+    private byte[] serialized;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        serializer = new CacheValueSerializer(codec, compressionThreshold);
+        deal = deal(contractors);
+        serialized = serializer.serialize(deal);
+
+        System.out.printf("%n%s, compression threshold %d, %d contractors: %d bytes%n",
+                codec, compressionThreshold, contractors, serialized.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(deal);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(serialized);
+    }
+
+    private static DealDTO deal(int contractors) {
+        UUID dealId = UUID.randomUUID();
+
+        List<DealContractorDTO> dealContractors = new ArrayList<>();
+        for (int i = 0; i < contractors; i++) {
+            String roleId = ROLES.get(i % ROLES.size());
+            dealContractors.add(DealContractorDTO.builder()
+                    .id(UUID.randomUUID())
+                    .dealId(dealId)
+                    .contractorId("CONTRACTOR-" + i)
+                    .name("ООО Контрагент " + i)
+                    .inn(String.valueOf(7700000000L + i))
+                    .main(i == 0)
+                    .roles(new ArrayList<>(List.of(RoleDTO.builder()
+                            .id(roleId)
+                            .name("Роль " + roleId)
+                            .category(roleId.substring(0, 1))
+                            .build())))
+                    .build());
+        }
+
+        return DealDTO.builder()
+                .id(dealId)
+                .description("Кредитная линия на пополнение оборотных средств")
+                .agreementNumber("AG-2024-001")
+                .agreementDate(LocalDate.of(2024, 3, 20))
+                .agreementStartDate(LocalDateTime.of(2024, 3, 20, 10, 0))
+                .availabilityDate(LocalDate.of(2025, 3, 20))
+                .closeDt(LocalDateTime.of(2026, 3, 20, 23, 59, 59))
+                .type(DealTypeDTO.builder().id("CREDIT").name("Кредитная сделка").build())
+                .status(DealStatusDTO.builder().id("ACTIVE").name("Действующая").build())
+                .sum(DealSumDTO.builder().value(new BigDecimal("1500000.00")).currency("RUB").build())
+                .contractors(dealContractors)
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CacheValueSerializerBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+}
@@ -0,0 +1,153 @@
+package io.github.dealmicroservice.benchmark;
+
+import io.github.dealmicroservice.DealMicroserviceApplication;
+import io.github.dealmicroservice.model.dto.DealSearchDTO;
+import io.github.dealmicroservice.model.entity.Deal;
+import io.github.dealmicroservice.repository.DealRepository;
+import io.github.dealmicroservice.repository.DealSearchQuery;
+import io.github.dealmicroservice.repository.DealSearchQueryCompiler;
+import io.github.dealmicroservice.repository.DealSortField;
+import io.github.dealmicroservice.repository.DealSpecification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение поиска сделок через Criteria API (DealSpecification) и через параметризованные
+ * JPQL-шаблоны DealSearchQueryCompiler на реальном PostgreSQL: страница сделок и подсчет.
+ * Каждый вызов использует новую строку поиска, поэтому для Criteria текст SQL меняется от запроса к запросу.
+ * Запуск (требуется Docker):
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=io.github.dealmicroservice.benchmark.DealSearchQueryBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DealSearchQueryBenchmark {
+
+    private static final int DEALS = 2_000;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"agreementNumber", "borrower", "typeAndStatus"})
+    private String shape;
+
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private DealRepository dealRepository;
+    private TransactionTemplate readOnlyTransaction;
+
+    private int sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        postgres = new PostgreSQLContainer<>("postgres:latest")
+                .withDatabaseName("deal_db")
+                .withUsername("deal")
+                .withPassword("1234");
+        postgres.start();
+
+        context = new SpringApplicationBuilder(DealMicroserviceApplication.class)
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "dealmicroservice.search.cache.enabled=false",
+                        "logging.level.root=WARN"
+                )
+                .run();
+
+        dealRepository = context.getBean(DealRepository.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        for (int i = 0; i < DEALS; i++) {
+            dealRepository.save(Deal.builder()
+                    .description("Deal " + i)
+                    .agreementNumber("AG-" + i)
+                    .typeId(i % 2 == 0 ? "CREDIT" : "OVERDRAFT")
+                    .statusId("DRAFT")
+                    .isActive(true)
+                    .build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public void criteria(Blackhole blackhole) {
+        DealSearchDTO request = nextRequest();
+        readOnlyTransaction.executeWithoutResult(status -> blackhole.consume(dealRepository.findAll(
+                DealSpecification.buildSpecification(request),
+                PageRequest.of(0, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "agreementNumber")))));
+    }
+
+    @Benchmark
+    public void compiled(Blackhole blackhole) {
+        DealSearchDTO request = nextRequest();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            DealSearchQuery query = DealSearchQueryCompiler.compile(request, DealSortField.AGREEMENT_NUMBER, true);
+            blackhole.consume(dealRepository.findPage(query, 0, PAGE_SIZE));
+            blackhole.consume(dealRepository.count(query));
+        });
+    }
+
+    private DealSearchDTO nextRequest() {
+        int value = sequence++ % DEALS;
+
+        DealSearchDTO request = new DealSearchDTO();
+        request.setPage(0);
+        request.setSize(PAGE_SIZE);
+        request.setSortBy("agreementNumber");
+        request.setSortDirection("DESC");
+
+        switch (shape) {
+            case "agreementNumber" -> request.setAgreementNumber("ag-" + value);
+            case "borrower" -> request.setBorrowerSearch("Contractor " + value);
+            default -> {
+                request.setType(List.of("CREDIT"));
+                request.setStatus(value % 2 == 0 ? List.of("DRAFT") : List.of("DRAFT", "ACTIVE"));
+            }
+        }
+
+        return request;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DealSearchQueryBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+}
@@ -0,0 +1,40 @@
+package io.github.dealmicroservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.dealmicroservice.model.dto.DealDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сериализатор значений кэша: ETag сделки сохраняется в кэше, но не попадает в ответы API
+ */
+class CacheValueSerializerTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {CacheValueSerializer.CODEC_JSON, CacheValueSerializer.CODEC_SMILE})
+    void deserialize_DealWithETag_ETagKept(String codec) {
+        CacheValueSerializer serializer = new CacheValueSerializer(codec, 1);
+        DealDTO deal = new DealDTO();
+        deal.setId(UUID.randomUUID());
+        deal.setEtag("\"etag\"");
+
+        DealDTO cached = (DealDTO) serializer.deserialize(serializer.serialize(deal));
+
+        assertThat(cached.getId()).isEqualTo(deal.getId());
+        assertThat(cached.getEtag()).isEqualTo("\"etag\"");
+    }
+
+    @Test
+    void apiMapper_DealWithETag_ETagHidden() throws Exception {
+        DealDTO deal = new DealDTO();
+        deal.setEtag("\"etag\"");
+
+        assertThat(new ObjectMapper().writeValueAsString(deal)).doesNotContain("etag");
+    }
+
+}
@@ -0,0 +1,66 @@
+package io.github.dealmicroservice.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Исполнитель параллельной догрузки: лимит задач по размеру пула соединений и передача контекста безопасности
+ */
+class ExecutorConfigTest {
+
+    private final ExecutorConfig executorConfig = new ExecutorConfig();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void dealHydrationExecutor_PropagatesSecurityContext() throws Exception {
+        Authentication authentication = new UsernamePasswordAuthenticationToken("reader", null, List.of());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        try (ExecutorService executor = executorConfig.dealHydrationExecutor(10, 10)) {
+            Future<Authentication> result = executor.submit(() -> SecurityContextHolder.getContext().getAuthentication());
+
+            assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(authentication);
+        }
+    }
+
+    @Test
+    void dealHydrationExecutor_RejectsTasksAboveQuarterOfSmallestPool() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = executorConfig.dealHydrationExecutor(20, 8)) {
+            executor.execute(() -> await(release));
+            executor.execute(() -> await(release));
+
+            assertThatThrownBy(() -> executor.execute(() -> await(release)))
+                    .isInstanceOf(RejectedExecutionException.class);
+
+            release.countDown();
+        }
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package io.github.dealmicroservice.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Объединение параллельных загрузок одного ключа: ожидающие запросы получают ошибку загрузки, включая Error
+ */
+class TwoLevelCacheTest {
+
+    private final TwoLevelCacheManager cacheManager = mock(TwoLevelCacheManager.class);
+    private final TwoLevelCache cache = new TwoLevelCache(new ConcurrentMapCache("local"), new ConcurrentMapCache("deals"), cacheManager);
+
+    @Test
+    void get_LoaderThrowsError_CoalescedWaiterReceivesError() throws Exception {
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+
+        CompletableFuture<Object> loader = CompletableFuture.supplyAsync(() -> cache.get("key", () -> {
+            loaderStarted.countDown();
+            releaseLoader.await();
+            throw new AssertionError("loader failed");
+        }));
+        assertThat(loaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Object> waiter = CompletableFuture.supplyAsync(() -> cache.get("key", () -> "unexpected"));
+        verify(cacheManager, timeout(5000)).recordCoalesced("deals");
+        releaseLoader.countDown();
+
+        assertThatThrownBy(() -> loader.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(AssertionError.class);
+        assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(AssertionError.class);
+    }
+
+    @Test
+    void get_AfterFailedLoad_LoadsAgain() {
+        assertThatThrownBy(() -> cache.get("key", () -> {
+            throw new StackOverflowError();
+        })).isInstanceOf(StackOverflowError.class);
+
+        assertThat(cache.get("key", () -> "value")).isEqualTo("value");
+    }
+
+}
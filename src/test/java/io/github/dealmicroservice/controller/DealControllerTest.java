@@ -4,6 +4,7 @@ package io.github.dealmicroservice.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.dealmicroservice.controller.v1.DealController;
 import io.github.dealmicroservice.exception.GlobalExceptionHandler;
+import io.github.dealmicroservice.exception.InvalidSearchCursorException;
 import io.github.dealmicroservice.model.dto.*;
 import io.github.dealmicroservice.service.DealService;
 import io.github.dealmicroservice.service.ExcelService;
@@ -13,16 +14,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
-import java.util.Arrays;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
 
@@ -166,11 +166,99 @@ public class DealControllerTest {
         verify(dealService, times(1)).getDealById(eq(dealId));
     }
 
+    @Test
+    void getDealById_MatchingETag_NotModified() throws Exception {
+        when(dealService.getDealById(eq(dealId))).thenReturn(dealDTO);
+
+        String eTag = mockMvc.perform(get("/api/v1/deal/{id}", dealId))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        mockMvc.perform(get("/api/v1/deal/{id}", dealId)
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        dealDTO.setDescription("Changed deal");
+
+        mockMvc.perform(get("/api/v1/deal/{id}", dealId)
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description").value("Changed deal"));
+    }
+
+    @Test
+    void getDealsByIds_Success() throws Exception {
+        UUID missingId = UUID.randomUUID();
+        DealBatchGetDTO request = new DealBatchGetDTO(List.of(missingId, dealId));
+
+        when(dealService.getDealsByIds(List.of(missingId, dealId))).thenReturn(List.of(dealDTO));
+
+        mockMvc.perform(post("/api/v1/deal/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(dealId.toString()));
+
+        verify(dealService, times(1)).getDealsByIds(List.of(missingId, dealId));
+    }
+
+    @Test
+    void getDealsByIds_EmptyIds_BadRequest() throws Exception {
+        DealBatchGetDTO request = new DealBatchGetDTO(List.of());
+
+        mockMvc.perform(post("/api/v1/deal/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verify(dealService, never()).getDealsByIds(any());
+    }
+
+    @Test
+    void saveDeals_ReturnsResultPerDeal() throws Exception {
+        DealSaveDTO unknownType = DealSaveDTO.builder()
+                .id(dealId)
+                .typeId("UNKNOWN")
+                .build();
+        DealBatchSaveDTO request = new DealBatchSaveDTO(List.of(dealSaveDTO, unknownType));
+        UUID createdId = UUID.randomUUID();
+
+        when(dealService.saveDeals(List.of(dealSaveDTO, unknownType))).thenReturn(List.of(
+                new DealBatchSaveResultDTO(0, createdId, DealBatchSaveResultDTO.Status.CREATED, null),
+                new DealBatchSaveResultDTO(1, dealId, DealBatchSaveResultDTO.Status.FAILED, "Тип сделки UNKNOWN не найден")));
+
+        mockMvc.perform(post("/api/v1/deal/batch-save")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(createdId.toString()))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[1].status").value("FAILED"))
+                .andExpect(jsonPath("$[1].error").value("Тип сделки UNKNOWN не найден"));
+    }
+
+    @Test
+    void saveDeals_EmptyDeals_BadRequest() throws Exception {
+        DealBatchSaveDTO request = new DealBatchSaveDTO(List.of());
+
+        mockMvc.perform(post("/api/v1/deal/batch-save")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verify(dealService, never()).saveDeals(any());
+    }
+
     @Test
     void searchDeals_Success() throws Exception {
 
-        List<DealDTO> deals = Arrays.asList(dealDTO);
-        Page<DealDTO> dealPage = new PageImpl<>(deals, PageRequest.of(0, 10), 1);
+        DealSearchPageDTO dealPage = searchPage(List.of(dealDTO), 1L, 1, false);
 
         when(dealService.searchDeals(any(DealSearchDTO.class))).thenReturn(dealPage);
 
@@ -180,17 +268,18 @@ public class DealControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content").isArray())
                 .andExpect(jsonPath("$.content[0].id").value(dealId.toString()))
-                .andExpect(jsonPath("$.totalElements").value(1))
-                .andExpect(jsonPath("$.totalPages").value(1))
-                .andExpect(jsonPath("$.size").value(10))
-                .andExpect(jsonPath("$.number").value(0));
+                .andExpect(jsonPath("$.page.totalElements").value(1))
+                .andExpect(jsonPath("$.page.totalPages").value(1))
+                .andExpect(jsonPath("$.page.size").value(10))
+                .andExpect(jsonPath("$.page.number").value(0))
+                .andExpect(jsonPath("$.has_next").value(false));
 
         verify(dealService, times(1)).searchDeals(any(DealSearchDTO.class));
     }
 
     @Test
     void searchDeals_EmptyResult() throws Exception {
-        Page<DealDTO> emptyPage = new PageImpl<>(Arrays.asList(), PageRequest.of(0, 10), 0);
+        DealSearchPageDTO emptyPage = searchPage(List.of(), 0L, 0, false);
 
         when(dealService.searchDeals(any(DealSearchDTO.class))).thenReturn(emptyPage);
 
@@ -200,12 +289,111 @@ public class DealControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content").isArray())
                 .andExpect(jsonPath("$.content").isEmpty())
-                .andExpect(jsonPath("$.totalElements").value(0))
-                .andExpect(jsonPath("$.totalPages").value(0));
+                .andExpect(jsonPath("$.page.totalElements").value(0))
+                .andExpect(jsonPath("$.page.totalPages").value(0));
 
         verify(dealService, times(1)).searchDeals(any(DealSearchDTO.class));
     }
 
+    @Test
+    void searchDeals_CountModeNone_SameShapeWithoutTotal() throws Exception {
+        DealSearchPageDTO slice = searchPage(List.of(dealDTO), null, null, true);
+
+        when(dealService.searchDeals(any(DealSearchDTO.class))).thenReturn(slice);
+
+        mockMvc.perform(post("/api/v1/deal/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dealSearchDTO)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(dealId.toString()))
+                .andExpect(jsonPath("$.page.size").value(10))
+                .andExpect(jsonPath("$.page.number").value(0))
+                .andExpect(jsonPath("$.page.totalElements").isEmpty())
+                .andExpect(jsonPath("$.page.totalPages").isEmpty())
+                .andExpect(jsonPath("$.has_next").value(true));
+    }
+
+    @Test
+    void searchDealsByCursor_Success() throws Exception {
+        DealCursorPageDTO cursorPage = DealCursorPageDTO.builder()
+                .content(List.of(dealDTO))
+                .size(1)
+                .hasNext(true)
+                .nextCursor("next-cursor")
+                .build();
+
+        when(dealService.searchDealsByCursor(any(DealSearchDTO.class))).thenReturn(cursorPage);
+
+        mockMvc.perform(post("/api/v1/deal/search/cursor")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dealSearchDTO)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(dealId.toString()))
+                .andExpect(jsonPath("$.has_next").value(true))
+                .andExpect(jsonPath("$.next_cursor").value("next-cursor"))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+
+        verify(dealService, times(1)).searchDealsByCursor(any(DealSearchDTO.class));
+    }
+
+    @Test
+    void searchDealsByCursor_InvalidCursor() throws Exception {
+        when(dealService.searchDealsByCursor(any(DealSearchDTO.class)))
+                .thenThrow(new InvalidSearchCursorException("Некорректный курсор поиска"));
+
+        mockMvc.perform(post("/api/v1/deal/search/cursor")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dealSearchDTO)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Некорректный курсор поиска"));
+    }
+
+    @Test
+    void streamDeals_Success() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(1);
+            outputStream.write(objectMapper.writeValueAsBytes(dealDTO));
+            outputStream.write('\n');
+            return null;
+        }).when(dealService).streamDeals(any(DealSearchDTO.class), any(OutputStream.class));
+
+        MvcResult mvcResult = mockMvc.perform(post("/api/v1/deal/search/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dealSearchDTO)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().bytes((objectMapper.writeValueAsString(dealDTO) + "\n").getBytes(StandardCharsets.UTF_8)));
+
+        verify(dealService, times(1)).streamDeals(any(DealSearchDTO.class), any(OutputStream.class));
+    }
+
+    @Test
+    void getFacets_Success() throws Exception {
+        DealFacetsDTO facets = DealFacetsDTO.builder()
+                .total(3L)
+                .statuses(List.of(new DealFacetCountDTO("DRAFT", 3L)))
+                .types(List.of(new DealFacetCountDTO("CREDIT", 2L), new DealFacetCountDTO("OVERDRAFT", 1L)))
+                .sumCurrencies(List.of(new DealFacetCountDTO("RUB", 2L), new DealFacetCountDTO(null, 1L)))
+                .build();
+
+        when(dealService.getFacets(any(DealSearchDTO.class))).thenReturn(facets);
+
+        mockMvc.perform(post("/api/v1/deal/search/facets")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dealSearchDTO)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.statuses[0].value").value("DRAFT"))
+                .andExpect(jsonPath("$.types[1].count").value(1))
+                .andExpect(jsonPath("$.sum_currencies[0].value").value("RUB"));
+
+        verify(dealService, times(1)).getFacets(any(DealSearchDTO.class));
+    }
+
     @Test
     void exportDeals_Success() throws Exception {
         String filePath = "/resources/deals_export.xlsx";
@@ -221,4 +409,12 @@ public class DealControllerTest {
         verify(excelService, times(1)).exportDealsToExcel(any(DealSearchDTO.class));
     }
 
+    private DealSearchPageDTO searchPage(List<DealDTO> content, Long totalElements, Integer totalPages, boolean hasNext) {
+        return DealSearchPageDTO.builder()
+                .content(content)
+                .page(new DealSearchPageDTO.PageMetadata(10, 0, totalElements, totalPages))
+                .hasNext(hasNext)
+                .build();
+    }
+
 }
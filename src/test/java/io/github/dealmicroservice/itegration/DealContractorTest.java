@@ -17,11 +17,12 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
-import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -126,4 +127,45 @@ public class DealContractorTest {
                 .isInstanceOf(org.springframework.dao.DataIntegrityViolationException.class);
     }
 
+    @Test
+    void findDealIdsByContractorId_ActiveContractorRows() {
+
+        String contractorId = "CONTR-" + UUID.randomUUID();
+
+        Deal anotherDeal = dealRepository.save(Deal.builder()
+                .description("Deal for sale house")
+                .agreementNumber("AG-124")
+                .typeId("OTHER")
+                .statusId("DRAFT")
+                .isActive(true)
+                .build());
+
+        Deal dealWithDeletedContractor = dealRepository.save(Deal.builder()
+                .description("Deal for sale boat")
+                .agreementNumber("AG-125")
+                .typeId("OTHER")
+                .statusId("DRAFT")
+                .isActive(true)
+                .build());
+
+        dealContractorRepository.save(contractor(contractorId, testDealId, true));
+        dealContractorRepository.save(contractor(contractorId, anotherDeal.getId(), true));
+        dealContractorRepository.save(contractor(contractorId, dealWithDeletedContractor.getId(), false));
+
+        List<UUID> dealIds = dealContractorRepository.findDealIdsByContractorId(contractorId);
+
+        assertThat(dealIds).containsExactlyInAnyOrder(testDealId, anotherDeal.getId());
+
+    }
+
+    private DealContractor contractor(String contractorId, UUID dealId, boolean active) {
+        return DealContractor.builder()
+                .contractorId(contractorId)
+                .dealId(dealId)
+                .name("Updated Contractor")
+                .isActive(active)
+                .main(false)
+                .build();
+    }
+
 }
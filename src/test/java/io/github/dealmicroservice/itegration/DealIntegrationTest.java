@@ -2,9 +2,19 @@ package io.github.dealmicroservice.itegration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.dealmicroservice.model.dto.DealSearchDTO;
+import io.github.dealmicroservice.model.dto.DealTypeDTO;
 import io.github.dealmicroservice.model.entity.Deal;
+import io.github.dealmicroservice.model.entity.DealSearchView;
+import io.github.dealmicroservice.model.projection.DealFacetProjection;
+import io.github.dealmicroservice.model.projection.DealSearchProjection;
 import io.github.dealmicroservice.repository.DealRepository;
+import io.github.dealmicroservice.repository.DealSearchViewRepository;
+import io.github.dealmicroservice.repository.DealSearchQuery;
+import io.github.dealmicroservice.repository.DealSearchQueryCompiler;
+import io.github.dealmicroservice.repository.DealSortField;
 import io.github.dealmicroservice.repository.DealSpecification;
+import io.github.dealmicroservice.service.DealSearchViewService;
+import io.github.dealmicroservice.service.DealTypeService;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -22,9 +32,11 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.time.Duration;
 import java.util.*;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.awaitility.Awaitility.await;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -54,6 +66,15 @@ public class DealIntegrationTest {
     @Autowired
     private DealRepository dealRepository;
 
+    @Autowired
+    private DealSearchViewRepository dealSearchViewRepository;
+
+    @Autowired
+    private DealSearchViewService dealSearchViewService;
+
+    @Autowired
+    private DealTypeService dealTypeService;
+
     private UUID testDealId;
 
     @BeforeEach
@@ -97,14 +118,11 @@ public class DealIntegrationTest {
 
     @Test
     void findByIdWithDetails_ExistingDeal() {
-        Optional<Deal> deal = dealRepository.findActiveByDealIdWithBasicDetails(testDealId);
+        Optional<DealSearchProjection> deal = dealRepository.findAggregateById(testDealId);
 
         assertThat(deal).isPresent();
 
-        Deal result = deal.get();
-
-        dealRepository.findByDealIdWithSums(testDealId);
-        dealRepository.findByDealIdWithContractors(testDealId);
+        DealSearchProjection result = deal.get();
 
         assertThat(result.getId()).isEqualTo(testDealId);
         assertThat(result.getDescription()).isEqualTo("Deal for sale car");
@@ -117,7 +135,7 @@ public class DealIntegrationTest {
 
         UUID not_existing_deal_id = UUID.randomUUID();
 
-        Optional<Deal> result = dealRepository.findActiveByDealIdWithBasicDetails(not_existing_deal_id);
+        Optional<DealSearchProjection> result = dealRepository.findAggregateById(not_existing_deal_id);
 
         assertThat(result).isEmpty();
 
@@ -182,4 +200,118 @@ public class DealIntegrationTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    void saveDealType_RefreshesSearchViewRowsInBackground() {
+
+        dealSearchViewService.rebuild();
+        String originalName = dealSearchViewRepository.findById(testDealId).orElseThrow().getTypeName();
+
+        try {
+            dealTypeService.saveDealType(new DealTypeDTO("OTHER", "Прочая сделка"));
+
+            await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                    Assertions.assertThat(dealSearchViewRepository.findById(testDealId))
+                            .get()
+                            .extracting(DealSearchView::getTypeName)
+                            .isEqualTo("Прочая сделка"));
+        } finally {
+            dealTypeService.saveDealType(new DealTypeDTO("OTHER", originalName));
+        }
+
+    }
+
+    @Test
+    void rebuild_LockedByAnotherInstance_Skipped() {
+
+        Assertions.assertThat(dealSearchViewRepository.tryLockRebuild("another-instance", 60)).isEqualTo(1);
+
+        try {
+            dealSearchViewService.rebuild();
+            Assertions.assertThat(dealSearchViewRepository.findById(testDealId)).isEmpty();
+        } finally {
+            dealSearchViewRepository.unlockRebuild("another-instance");
+        }
+
+        dealSearchViewService.rebuild();
+        Assertions.assertThat(dealSearchViewRepository.findById(testDealId)).isPresent();
+
+    }
+
+    @Test
+    void searchDealView_MatchesBaseTables_Success() {
+
+        dealSearchViewService.rebuild();
+
+        DealSearchDTO filter = new DealSearchDTO();
+        filter.setType(Arrays.asList("OVERDRAFT", "OTHER"));
+        filter.setAgreementNumber("ag-");
+        filter.setPage(0);
+        filter.setSize(10);
+
+        Page<Deal> expected = dealRepository.findAll(DealSpecification.buildSpecification(filter), PageRequest.of(0, 10));
+        Page<DealSearchView> result = dealSearchViewRepository.findAll(
+                DealSpecification.buildSearchViewSpecification(filter), PageRequest.of(0, 10));
+
+        Assertions.assertThat(result.getTotalElements()).isEqualTo(expected.getTotalElements());
+        Assertions.assertThat(result.getContent()).extracting(DealSearchView::getId)
+                .containsExactlyInAnyOrderElementsOf(expected.getContent().stream().map(Deal::getId).toList());
+        Assertions.assertThat(result.getContent()).extracting(DealSearchView::getTypeName).doesNotContainNull();
+
+    }
+
+    @Test
+    void searchCompiledQuery_MatchesCriteria_Success() {
+
+        DealSearchDTO filter = new DealSearchDTO();
+        filter.setType(Arrays.asList("OVERDRAFT", "OTHER"));
+        filter.setAgreementNumber("ag-");
+        filter.setPage(0);
+        filter.setSize(10);
+
+        Page<Deal> expected = dealRepository.findAll(DealSpecification.buildSpecification(filter), PageRequest.of(0, 10));
+        DealSearchQuery query = DealSearchQueryCompiler.compile(filter, DealSortField.ID, false);
+
+        Assertions.assertThat(dealRepository.count(query)).isEqualTo(expected.getTotalElements());
+        Assertions.assertThat(dealRepository.findPage(query, 0, 10)).extracting(Deal::getId)
+                .containsExactlyInAnyOrderElementsOf(expected.getContent().stream().map(Deal::getId).toList());
+
+    }
+
+    @Test
+    void findFacets_GroupsByStatusAndType_Success() {
+
+        DealSearchDTO filter = new DealSearchDTO();
+        filter.setAgreementNumber("ag-");
+
+        List<DealFacetProjection> facets = dealRepository.findFacets(DealSpecification.buildSpecification(filter));
+
+        Assertions.assertThat(facets).extracting(DealFacetProjection::getStatusId).containsOnly("DRAFT");
+        Assertions.assertThat(facets).extracting(DealFacetProjection::getCurrencyId).containsOnlyNulls();
+        Assertions.assertThat(facets).extracting(DealFacetProjection::getTypeId)
+                .containsExactlyInAnyOrder("OTHER", "OVERDRAFT", "CREDIT");
+        Assertions.assertThat(facets.stream().mapToLong(DealFacetProjection::getCount).sum())
+                .isEqualTo(dealRepository.count(DealSpecification.buildSpecification(filter)));
+
+    }
+
+    @Test
+    void searchDescriptionQuery_FullTextAndRelevance_Success() {
+
+        DealSearchDTO filter = new DealSearchDTO();
+        filter.setDescriptionQuery("sale -apartment");
+
+        Assertions.assertThat(dealRepository.findAll(DealSpecification.buildSpecification(filter)))
+                .extracting(Deal::getId)
+                .containsExactly(testDealId);
+
+        filter.setDescriptionQuery("car or sale");
+        DealSearchQuery query = DealSearchQueryCompiler.compile(filter, DealSortField.RELEVANCE, false);
+        List<Deal> deals = dealRepository.findPage(query, 0, 10);
+
+        Assertions.assertThat(deals).hasSize(2);
+        Assertions.assertThat(deals.getFirst().getId()).isEqualTo(testDealId);
+        Assertions.assertThat(dealRepository.count(query)).isEqualTo(2);
+
+    }
+
+}
@@ -0,0 +1,173 @@
+package io.github.dealmicroservice.itegration;
+
+import io.github.dealmicroservice.model.dto.DealDTO;
+import io.github.dealmicroservice.model.dto.DealSearchDTO;
+import io.github.dealmicroservice.model.entity.Deal;
+import io.github.dealmicroservice.model.entity.DealContractor;
+import io.github.dealmicroservice.repository.DealContractorRepository;
+import io.github.dealmicroservice.repository.DealRepository;
+import io.github.dealmicroservice.service.DealService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Параллельная догрузка сумм и контрагентов страницы поиска.
+ * Пул из четырех соединений допускает одну задачу догрузки, поэтому одновременные поиски
+ * сверх лимита должны выполняться последовательно, а не ждать соединений друг друга.
+ */
+@SpringBootTest(properties = {
+        "dealmicroservice.search.parallel-hydration=true",
+        "dealmicroservice.search.cache.enabled=false",
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.connection-timeout=5000"
+})
+@Testcontainers
+class DealParallelHydrationTest {
+
+    private static final int DEALS = 20;
+    private static final int CONCURRENT_SEARCHES = 8;
+
+    @Container
+    public static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName("deal_db")
+            .withUsername("deal")
+            .withPassword("1234");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+    }
+
+    @Autowired
+    private DealService dealService;
+
+    @Autowired
+    private DealRepository dealRepository;
+
+    @Autowired
+    private DealContractorRepository dealContractorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry.clear();
+
+        if (dealRepository.count() > 0) {
+            return;
+        }
+
+        for (int i = 0; i < DEALS; i++) {
+            Deal deal = dealRepository.save(Deal.builder()
+                    .description("Deal " + i)
+                    .agreementNumber("AG-" + i)
+                    .typeId("CREDIT")
+                    .statusId("DRAFT")
+                    .isActive(true)
+                    .build());
+
+            dealContractorRepository.save(DealContractor.builder()
+                    .dealId(deal.getId())
+                    .contractorId("BOR" + i)
+                    .name("Contractor " + i)
+                    .main(true)
+                    .isActive(true)
+                    .build());
+
+            jdbcTemplate.update("INSERT INTO deal_sum (deal_id, sum, currency_id, is_main, is_active) VALUES (?, 100, 'RUB', true, true)",
+                    deal.getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        setParallelHydration(true);
+    }
+
+    @Test
+    void searchDeals_ParallelAndSequential_SameResultAndBothTimed() {
+        setParallelHydration(false);
+        List<DealDTO> sequential = search();
+
+        setParallelHydration(true);
+        List<DealDTO> parallel = search();
+
+        assertThat(parallel).hasSize(DEALS).isEqualTo(sequential);
+        assertThat(parallel).allSatisfy(deal -> {
+            assertThat(deal.getSum()).isNotNull();
+            assertThat(deal.getContractors()).hasSize(1);
+        });
+
+        Timer sequentialTimer = hydrationTimer("sequential");
+        Timer parallelTimer = hydrationTimer("parallel");
+        assertThat(sequentialTimer.count()).isEqualTo(1);
+        assertThat(parallelTimer.count()).isEqualTo(1);
+        assertThat(sequentialTimer.totalTime(TimeUnit.NANOSECONDS)).isPositive();
+        assertThat(parallelTimer.totalTime(TimeUnit.NANOSECONDS)).isPositive();
+    }
+
+    @Test
+    void searchDeals_ConcurrentSearchesAboveLimit_CompleteWithoutWaitingForConnections() throws Exception {
+        List<Future<List<DealDTO>>> results = new ArrayList<>();
+
+        try (ExecutorService callers = Executors.newFixedThreadPool(CONCURRENT_SEARCHES)) {
+            for (int i = 0; i < CONCURRENT_SEARCHES; i++) {
+                results.add(callers.submit(this::search));
+            }
+
+            for (Future<List<DealDTO>> result : results) {
+                assertThat(result.get(30, TimeUnit.SECONDS)).hasSize(DEALS);
+            }
+        }
+
+        long timed = meterRegistry.find("deal.search.hydration").timers().stream()
+                .mapToLong(Timer::count)
+                .sum();
+        assertThat(timed).isEqualTo(CONCURRENT_SEARCHES);
+    }
+
+    private List<DealDTO> search() {
+        DealSearchDTO request = new DealSearchDTO();
+        request.setPage(0);
+        request.setSize(DEALS);
+        return dealService.searchDeals(request).getContent();
+    }
+
+    private Timer hydrationTimer(String mode) {
+        return meterRegistry.get("deal.search.hydration").tag("mode", mode).timer();
+    }
+
+    private void setParallelHydration(boolean parallelHydration) {
+        ReflectionTestUtils.setField(AopTestUtils.getTargetObject(dealService), "parallelHydration", parallelHydration);
+    }
+
+}
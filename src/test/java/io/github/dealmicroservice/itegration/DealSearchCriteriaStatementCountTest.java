@@ -0,0 +1,12 @@
+package io.github.dealmicroservice.itegration;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Проверки количества SQL-запросов и кэша второго уровня из DealSearchStatementCountTest
+ * для поиска через Criteria API (dealmicroservice.search.compiled-queries=false)
+ */
+@TestPropertySource(properties = "dealmicroservice.search.compiled-queries=false")
+class DealSearchCriteriaStatementCountTest extends DealSearchStatementCountTest {
+
+}
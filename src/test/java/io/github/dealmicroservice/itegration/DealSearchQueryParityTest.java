@@ -0,0 +1,217 @@
+package io.github.dealmicroservice.itegration;
+
+import io.github.dealmicroservice.model.dto.DealSearchDTO;
+import io.github.dealmicroservice.model.dto.DealSumDTO;
+import io.github.dealmicroservice.model.entity.ContractorToRole;
+import io.github.dealmicroservice.model.entity.Deal;
+import io.github.dealmicroservice.model.entity.DealContractor;
+import io.github.dealmicroservice.repository.ContractorToRoleRepository;
+import io.github.dealmicroservice.repository.DealContractorRepository;
+import io.github.dealmicroservice.repository.DealRepository;
+import io.github.dealmicroservice.repository.DealSearchFilter;
+import io.github.dealmicroservice.repository.DealSearchQuery;
+import io.github.dealmicroservice.repository.DealSearchQueryCompiler;
+import io.github.dealmicroservice.repository.DealSortField;
+import io.github.dealmicroservice.repository.DealSpecification;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Паритет скомпилированного JPQL (DealSearchQueryCompiler) и Criteria API (DealSpecification):
+ * для каждой комбинации фильтров DealSearchFilter оба пути должны находить одни и те же сделки
+ * в одном порядке и одинаково их считать, а оценка количества - строиться по плану SQL того же запроса
+ */
+@SpringBootTest
+@Testcontainers
+class DealSearchQueryParityTest {
+
+    private static final int DEALS = 12;
+    private static final String EQUIPMENT = "Loan for equipment";
+    private static final LocalDate AGREEMENT_DATE = LocalDate.of(2024, 1, 1);
+    private static final LocalDateTime CLOSE_DT = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @Container
+    public static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName("deal_db")
+            .withUsername("deal")
+            .withPassword("1234");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+    }
+
+    @Autowired
+    private DealRepository dealRepository;
+
+    @Autowired
+    private DealContractorRepository dealContractorRepository;
+
+    @Autowired
+    private ContractorToRoleRepository contractorToRoleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private UUID probeDealId;
+
+    @BeforeEach
+    void setUp() {
+
+        if (dealRepository.count() > 0) {
+            probeDealId = dealRepository.findAll(Sort.by("agreementNumber")).get(0).getId();
+            return;
+        }
+
+        for (int i = 0; i < DEALS; i++) {
+            Deal deal = dealRepository.save(Deal.builder()
+                    .description(i % 2 == 0 ? EQUIPMENT : "Lease of building")
+                    .agreementNumber((i % 3 == 0 ? "AG-" : "XY-") + i)
+                    .agreementDate(AGREEMENT_DATE.plusMonths(i))
+                    .availabilityDate(AGREEMENT_DATE.plusMonths(i + 1))
+                    .closeDt(CLOSE_DT.plusDays(i))
+                    .typeId(List.of("CREDIT", "OVERDRAFT", "OTHER").get(i % 3))
+                    .statusId(i % 4 == 0 ? "ACTIVE" : "DRAFT")
+                    .isActive(i != DEALS - 1)
+                    .build());
+
+            if (i == 0) {
+                probeDealId = deal.getId();
+            }
+
+            addContractor(deal, "BOR" + i, i % 2 == 0 ? "Alpha borrower" : "Beta borrower", "BORROWER");
+            if (i % 3 != 1) {
+                addContractor(deal, "WAR" + i, "Warranty " + i, "WARRANTY");
+            }
+
+            jdbcTemplate.update("INSERT INTO deal_sum (deal_id, sum, currency_id, is_main, is_active) VALUES (?, ?, ?, true, true)",
+                    deal.getId(), BigDecimal.valueOf(100L * (i % 2 + 1)), i % 4 < 2 ? "RUB" : "USD");
+        }
+    }
+
+    @Test
+    void compiledQueryMatchesSpecificationForEveryFilterCombination() {
+
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        SoftAssertions softly = new SoftAssertions();
+
+        for (int shape = 0; shape < 1 << DealSearchFilter.values().length; shape++) {
+            DealSearchDTO request = request(shape);
+            int mask = shape;
+
+            readOnlyTransaction.executeWithoutResult(status -> {
+                DealSearchQuery query = DealSearchQueryCompiler.compile(request, DealSortField.ID, false);
+                Specification<Deal> specification = DealSpecification.buildSpecification(request);
+
+                List<UUID> compiled = dealRepository.findPage(query, 0, DEALS).stream().map(Deal::getId).toList();
+                List<UUID> criteria = dealRepository.findAll(specification, Sort.by("id")).stream().map(Deal::getId).toList();
+
+                softly.assertThat(compiled).as("ids, shape %s", Integer.toHexString(mask)).isEqualTo(criteria);
+                softly.assertThat(dealRepository.count(query)).as("count, shape %s", Integer.toHexString(mask))
+                        .isEqualTo(dealRepository.count(specification));
+            });
+        }
+
+        softly.assertAll();
+    }
+
+    @Test
+    void estimateCountExplainsCompiledQueryForEveryFilterCombination() {
+
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        SoftAssertions softly = new SoftAssertions();
+
+        for (int shape = 0; shape < 1 << DealSearchFilter.values().length; shape++) {
+            DealSearchQuery query = DealSearchQueryCompiler.compile(request(shape), DealSortField.ID, false);
+            int mask = shape;
+
+            readOnlyTransaction.executeWithoutResult(status -> softly.assertThat(dealRepository.estimateCount(query))
+                    .as("estimate, shape %s", Integer.toHexString(mask))
+                    .isNotNegative());
+        }
+
+        softly.assertAll();
+        assertThat(dealRepository.count()).isEqualTo(DEALS);
+    }
+
+    /**
+     * Запрос, в котором заданы ровно фильтры из маски; значения выбраны так,
+     * чтобы каждый фильтр отсекал часть сделок
+     */
+    private DealSearchDTO request(int shape) {
+
+        DealSearchDTO request = new DealSearchDTO();
+
+        for (DealSearchFilter filter : DealSearchFilter.values()) {
+            if ((shape & filter.bit()) == 0) {
+                continue;
+            }
+            switch (filter) {
+                case DEAL_ID -> request.setDealId(probeDealId);
+                case DESCRIPTION -> request.setDescription(EQUIPMENT);
+                case AGREEMENT_NUMBER -> request.setAgreementNumber("ag-");
+                case AGREEMENT_DATE -> {
+                    request.setAgreementDateFrom(AGREEMENT_DATE.plusMonths(1));
+                    request.setAgreementDateTo(AGREEMENT_DATE.plusMonths(9));
+                }
+                case AVAILABILITY_DATE -> request.setAvailabilityDateTo(AGREEMENT_DATE.plusMonths(7));
+                case TYPE -> request.setType(List.of("CREDIT", "OVERDRAFT"));
+                case STATUS -> request.setStatus(List.of("DRAFT"));
+                case CLOSE_DT -> request.setCloseDtFrom(CLOSE_DT.plusDays(2));
+                case BORROWER -> request.setBorrowerSearch("alpha");
+                case WARRANTY -> request.setWarrantySearch("WAR");
+                case SUM -> request.setSum(new DealSumDTO(BigDecimal.valueOf(100), "RUB"));
+                case DESCRIPTION_QUERY -> request.setDescriptionQuery("equipment");
+            }
+        }
+
+        return request;
+    }
+
+    private void addContractor(Deal deal, String contractorId, String name, String roleId) {
+
+        DealContractor contractor = dealContractorRepository.save(DealContractor.builder()
+                .dealId(deal.getId())
+                .contractorId(contractorId)
+                .name(name)
+                .inn("77" + contractorId)
+                .isActive(true)
+                .build());
+
+        ContractorToRole contractorToRole = new ContractorToRole();
+        contractorToRole.setContractorId(contractor.getId());
+        contractorToRole.setRoleId(roleId);
+        contractorToRole.setIsActive(true);
+        contractorToRoleRepository.save(contractorToRole);
+    }
+
+}
@@ -0,0 +1,235 @@
+package io.github.dealmicroservice.itegration;
+
+import io.github.dealmicroservice.config.HibernateCacheConfig;
+import io.github.dealmicroservice.mapping.DealMapping;
+import io.github.dealmicroservice.model.dto.DealCursorPageDTO;
+import io.github.dealmicroservice.model.dto.DealDTO;
+import io.github.dealmicroservice.model.dto.DealSearchDTO;
+import io.github.dealmicroservice.model.dto.DealSearchPageDTO;
+import io.github.dealmicroservice.model.entity.ContractorToRole;
+import io.github.dealmicroservice.model.entity.Deal;
+import io.github.dealmicroservice.model.entity.DealContractor;
+import io.github.dealmicroservice.repository.ContractorToRoleRepository;
+import io.github.dealmicroservice.repository.DealContractorRepository;
+import io.github.dealmicroservice.repository.DealRepository;
+import io.github.dealmicroservice.service.DealService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Регрессионный тест на N+1: количество SQL-запросов на страницу поиска
+ * не должно зависеть от количества сделок и контрагентов на странице,
+ * а сделка по id со всеми контрагентами и ролями выбирается одним запросом.
+ * Типы и статусы сделок страницы поиска и keyset-пагинации берутся из кэша второго уровня без SQL.
+ * Те же проверки для поиска через Criteria API - в DealSearchCriteriaStatementCountTest
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "dealmicroservice.search.cache.enabled=false"
+})
+@Testcontainers
+class DealSearchStatementCountTest {
+
+    private static final int DEALS = 30;
+    private static final List<String> ROLES = List.of("BORROWER", "WARRANTY", "GARANT");
+
+    @Container
+    public static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName("deal_db")
+            .withUsername("deal")
+            .withPassword("1234");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+    }
+
+    @Autowired
+    private DealService dealService;
+
+    @Autowired
+    private DealRepository dealRepository;
+
+    @Autowired
+    private DealContractorRepository dealContractorRepository;
+
+    @Autowired
+    private ContractorToRoleRepository contractorToRoleRepository;
+
+    @Autowired
+    private DealMapping dealMapping;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        if (dealRepository.count() > 0) {
+            return;
+        }
+
+        for (int i = 0; i < DEALS; i++) {
+            Deal deal = dealRepository.save(Deal.builder()
+                    .description("Deal " + i)
+                    .agreementNumber("AG-" + i)
+                    .typeId("CREDIT")
+                    .statusId("DRAFT")
+                    .isActive(true)
+                    .build());
+
+            for (String roleId : ROLES) {
+                DealContractor contractor = dealContractorRepository.save(DealContractor.builder()
+                        .dealId(deal.getId())
+                        .contractorId(roleId.substring(0, 3) + i)
+                        .name("Contractor " + roleId + " " + i)
+                        .main("BORROWER".equals(roleId))
+                        .isActive(true)
+                        .build());
+
+                ContractorToRole contractorToRole = new ContractorToRole();
+                contractorToRole.setContractorId(contractor.getId());
+                contractorToRole.setRoleId(roleId);
+                contractorToRole.setIsActive(true);
+                contractorToRoleRepository.save(contractorToRole);
+            }
+        }
+    }
+
+    @Test
+    void searchDeals_StatementCountDoesNotDependOnPageSize() {
+        search(1);
+
+        long smallPageStatements = countStatements(5);
+        long fullPageStatements = countStatements(DEALS);
+
+        assertThat(fullPageStatements).isEqualTo(smallPageStatements);
+    }
+
+    @Test
+    void searchDeals_ContractorRolesLoadedInBatch() {
+        DealSearchPageDTO result = search(DEALS);
+
+        assertThat(result.getContent()).hasSize(DEALS);
+        assertThat(result.getContent())
+                .allSatisfy(deal -> assertThat(deal.getContractors())
+                        .hasSize(ROLES.size())
+                        .allSatisfy(contractor -> assertThat(contractor.getRoles()).hasSize(1)));
+    }
+
+    @Test
+    void getDealById_LoadedWithSingleStatement() {
+        UUID dealId = search(1).getContent().get(0).getId();
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        statistics.clear();
+        DealDTO deal = readOnlyTransaction.execute(status -> dealRepository.findAggregateById(dealId)
+                .map(dealMapping::mapToDTO)
+                .orElseThrow());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(deal.getType().getId()).isEqualTo("CREDIT");
+        assertThat(deal.getStatus().getId()).isEqualTo("DRAFT");
+        assertThat(deal.getContractors())
+                .hasSize(ROLES.size())
+                .allSatisfy(contractor -> assertThat(contractor.getRoles()).hasSize(1));
+    }
+
+    @Test
+    void searchDeals_ReferenceEntitiesResolvedFromSecondLevelCache() {
+        search(DEALS);
+
+        statistics.clear();
+        DealSearchPageDTO result = search(DEALS);
+
+        assertThat(result.getContent())
+                .allSatisfy(deal -> {
+                    assertThat(deal.getType().getName()).isNotNull();
+                    assertThat(deal.getStatus().getName()).isNotNull();
+                });
+        assertThat(statistics.getSecondLevelCacheHitCount()).isPositive();
+        assertThat(statistics.getSecondLevelCacheMissCount()).isZero();
+        assertThat(statistics.getDomainDataRegionStatistics(HibernateCacheConfig.DEAL_TYPE_REGION).getHitCount()).isPositive();
+        assertThat(statistics.getDomainDataRegionStatistics(HibernateCacheConfig.DEAL_STATUS_REGION).getHitCount()).isPositive();
+    }
+
+    @Test
+    void searchDealsByCursor_StatementCountDoesNotDependOnPageSize() {
+        searchByCursor(1);
+
+        statistics.clear();
+        searchByCursor(5);
+        long smallPageStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        searchByCursor(DEALS);
+        long fullPageStatements = statistics.getPrepareStatementCount();
+
+        assertThat(fullPageStatements).isEqualTo(smallPageStatements);
+    }
+
+    @Test
+    void searchDealsByCursor_ReferenceEntitiesResolvedFromSecondLevelCache() {
+        searchByCursor(DEALS);
+
+        statistics.clear();
+        DealCursorPageDTO result = searchByCursor(DEALS);
+
+        assertThat(result.getContent())
+                .hasSize(DEALS)
+                .allSatisfy(deal -> {
+                    assertThat(deal.getType().getName()).isNotNull();
+                    assertThat(deal.getStatus().getName()).isNotNull();
+                });
+        assertThat(statistics.getSecondLevelCacheMissCount()).isZero();
+        assertThat(statistics.getDomainDataRegionStatistics(HibernateCacheConfig.DEAL_TYPE_REGION).getHitCount()).isPositive();
+        assertThat(statistics.getDomainDataRegionStatistics(HibernateCacheConfig.DEAL_STATUS_REGION).getHitCount()).isPositive();
+    }
+
+    private long countStatements(int pageSize) {
+        statistics.clear();
+        search(pageSize);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private DealSearchPageDTO search(int pageSize) {
+        DealSearchDTO request = new DealSearchDTO();
+        request.setPage(0);
+        request.setSize(pageSize);
+        return dealService.searchDeals(request);
+    }
+
+    private DealCursorPageDTO searchByCursor(int pageSize) {
+        DealSearchDTO request = new DealSearchDTO();
+        request.setSize(pageSize);
+        return dealService.searchDealsByCursor(request);
+    }
+
+}
@@ -0,0 +1,213 @@
+package io.github.dealmicroservice.itegration;
+
+import io.github.dealmicroservice.service.ReadYourWritesService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Маршрутизация соединений между основной БД и репликой.
+ * Роль реплики играет второй локальный PostgreSQL с другим именем базы,
+ * поэтому источник соединения определяется по current_database().
+ * Закрепление за основной БД после записи хранится в Redis и общее для всех экземпляров,
+ * без пользователя вызывающий определяется по заголовку X-Client-Id.
+ */
+@SpringBootTest
+@Testcontainers
+public class ReadReplicaRoutingTest {
+
+    private static final String PRIMARY_DB = "deal_db";
+    private static final String REPLICA_DB = "deal_replica_db";
+
+    @Container
+    public static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName(PRIMARY_DB)
+            .withUsername("deal")
+            .withPassword("1234");
+
+    @Container
+    public static final PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName(REPLICA_DB)
+            .withUsername("deal")
+            .withPassword("1234");
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis")
+            .withExposedPorts(6379);
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("dealmicroservice.datasource.replica.url", replica::getJdbcUrl);
+        registry.add("spring.data.redis.host", redis::getHost);
+        registry.add("spring.data.redis.port", () -> redis.getMappedPort(6379));
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReadYourWritesService readYourWritesService;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate readWriteTransaction;
+
+    @BeforeEach
+    void setUp() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyTransaction_RoutedToReplica() {
+
+        assertThat(currentDatabase(readOnlyTransaction)).isEqualTo(REPLICA_DB);
+        assertThat(currentDatabase(readWriteTransaction)).isEqualTo(PRIMARY_DB);
+
+    }
+
+    @Test
+    void readOnlyTransaction_AfterWrite_RoutedToPrimaryForSameCaller() {
+
+        authenticate("writer");
+        readWriteTransaction.executeWithoutResult(status -> readYourWritesService.recordWrite());
+
+        assertThat(currentDatabase(readOnlyTransaction)).isEqualTo(PRIMARY_DB);
+
+        authenticate("reader");
+        assertThat(currentDatabase(readOnlyTransaction)).isEqualTo(REPLICA_DB);
+
+    }
+
+    @Test
+    void readOnlyTransaction_AfterRolledBackWrite_RoutedToReplica() {
+
+        authenticate("rollback");
+        readWriteTransaction.executeWithoutResult(status -> {
+            readYourWritesService.recordWrite();
+            status.setRollbackOnly();
+        });
+
+        assertThat(currentDatabase(readOnlyTransaction)).isEqualTo(REPLICA_DB);
+
+    }
+
+    @Test
+    void readOnlyTransaction_AfterWriteOnAnotherInstance_RoutedToPrimary() {
+
+        ReadYourWritesService anotherInstance = new ReadYourWritesService(redisTemplate);
+        ReflectionTestUtils.setField(anotherInstance, "window", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(anotherInstance, "replicaUrl", replica.getJdbcUrl());
+
+        authenticate("remote-writer");
+        readWriteTransaction.executeWithoutResult(status -> anotherInstance.recordWrite());
+
+        assertThat(currentDatabase(readOnlyTransaction)).isEqualTo(PRIMARY_DB);
+
+    }
+
+    @Test
+    void readOnlyTransaction_AfterWriteByClientId_RoutedToPrimaryForSameClient() {
+
+        startRequest("client-1");
+        readWriteTransaction.executeWithoutResult(status -> readYourWritesService.recordWrite());
+
+        startRequest("client-1");
+        assertThat(currentDatabase(readOnlyTransaction)).isEqualTo(PRIMARY_DB);
+
+        startRequest("client-2");
+        assertThat(currentDatabase(readOnlyTransaction)).isEqualTo(REPLICA_DB);
+
+    }
+
+    @Test
+    void readOnlyTransaction_AfterWriteWithoutClientId_RoutedToReplica() {
+
+        startRequest(null);
+        readWriteTransaction.executeWithoutResult(status -> readYourWritesService.recordWrite());
+
+        startRequest(null);
+        assertThat(currentDatabase(readOnlyTransaction)).isEqualTo(REPLICA_DB);
+        assertThat(redisTemplate.keys("read_your_writes:address:*")).isEmpty();
+
+    }
+
+    @Test
+    void readOnlyTransaction_PinCheckedOncePerRequest() {
+
+        startRequest("client-3");
+        assertThat(currentDatabase(readOnlyTransaction)).isEqualTo(REPLICA_DB);
+
+        redisTemplate.opsForValue().set("read_your_writes:client:client-3", "1", Duration.ofSeconds(5));
+        assertThat(currentDatabase(readOnlyTransaction)).isEqualTo(REPLICA_DB);
+
+        startRequest("client-3");
+        assertThat(currentDatabase(readOnlyTransaction)).isEqualTo(PRIMARY_DB);
+
+    }
+
+    @Test
+    void readFromPrimary_ReadOnlyTransactionRoutedToPrimary() {
+
+        assertThat(readYourWritesService.readFromPrimary(() -> currentDatabase(readOnlyTransaction))).isEqualTo(PRIMARY_DB);
+        assertThat(currentDatabase(readOnlyTransaction)).isEqualTo(REPLICA_DB);
+
+    }
+
+    private String currentDatabase(TransactionTemplate transaction) {
+        return transaction.execute(status -> jdbcTemplate.queryForObject("select current_database()", String.class));
+    }
+
+    private void startRequest(String clientId) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (clientId != null) {
+            request.addHeader("X-Client-Id", clientId);
+        }
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+}
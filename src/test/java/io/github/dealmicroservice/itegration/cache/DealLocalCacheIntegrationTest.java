@@ -0,0 +1,186 @@
+package io.github.dealmicroservice.itegration.cache;
+
+import io.github.dealmicroservice.config.TwoLevelCacheManager;
+import io.github.dealmicroservice.mapping.DealMapping;
+import io.github.dealmicroservice.model.dto.DealDTO;
+import io.github.dealmicroservice.model.projection.DealSearchProjection;
+import io.github.dealmicroservice.repository.DealRepository;
+import io.github.dealmicroservice.service.DealCacheService;
+import io.github.dealmicroservice.service.DealService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Интеграционный тест локального кэша сделок перед Redis, его инвалидации
+ * сообщениями других экземпляров сервиса, адресного удаления набора сделок
+ * и объединения параллельных загрузок
+ */
+@SpringBootTest
+@Testcontainers
+class DealLocalCacheIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres")
+            .withDatabaseName("deal_local_cache_test_db")
+            .withUsername("test")
+            .withPassword("test");
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis")
+            .withExposedPorts(6379);
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.data.redis.host", redis::getHost);
+        registry.add("spring.data.redis.port", () -> redis.getMappedPort(6379));
+        registry.add("dealmicroservice.deals.cache.local.ttl", () -> "PT1M");
+    }
+
+    @Autowired
+    private DealService dealService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    @Qualifier("dealsRedisCacheManager")
+    private CacheManager redisCacheManager;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private DealCacheService dealCacheService;
+
+    @MockitoBean
+    private DealRepository dealRepository;
+
+    @MockitoBean
+    private DealMapping dealMapping;
+
+    private UUID testDealId;
+    private DealSearchProjection projection;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache("deals").clear();
+        Mockito.reset(dealRepository, dealMapping);
+
+        testDealId = UUID.randomUUID();
+        projection = new DealSearchProjection(testDealId, "Test Deal", null, null, null, null, null,
+                "CREDIT", null, "DRAFT", null, null, null, "[]");
+
+        when(dealRepository.findAggregateById(testDealId)).thenReturn(Optional.of(projection));
+        when(dealMapping.mapToDTO(projection)).thenReturn(DealDTO.builder().id(testDealId).description("Test Deal").build());
+    }
+
+    @Test
+    void getDealById_ServedFromLocalCacheWithoutRedisEntry() {
+        dealService.getDealById(testDealId);
+
+        redisTemplate.delete("deals::" + testDealId);
+
+        DealDTO result = dealService.getDealById(testDealId);
+
+        assertThat(result.getId()).isEqualTo(testDealId);
+        verify(dealRepository, times(1)).findAggregateById(testDealId);
+    }
+
+    @Test
+    void concurrentMisses_LoadDealOnce() throws Exception {
+        when(dealRepository.findAggregateById(testDealId)).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return Optional.of(projection);
+        });
+
+        int requests = 10;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        try {
+            List<Future<DealDTO>> results = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return dealService.getDealById(testDealId);
+                }));
+            }
+            start.countDown();
+
+            for (Future<DealDTO> result : results) {
+                assertThat(result.get().getId()).isEqualTo(testDealId);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(dealRepository, times(1)).findAggregateById(testDealId);
+    }
+
+    @Test
+    void evictAll_RemovesDealFromBothLevels() {
+        dealService.getDealById(testDealId);
+
+        dealCacheService.evictAll(List.of(testDealId, UUID.randomUUID()));
+
+        assertThat(redisTemplate.hasKey("deals::" + testDealId)).isFalse();
+        assertThat(cacheManager.getCache("deals").get(testDealId)).isNull();
+
+        dealService.getDealById(testDealId);
+
+        verify(dealRepository, times(2)).findAggregateById(testDealId);
+    }
+
+    @Test
+    void evictOnAnotherInstance_InvalidatesLocalCache() {
+        dealService.getDealById(testDealId);
+        redisTemplate.delete("deals::" + testDealId);
+
+        TwoLevelCacheManager anotherInstance = new TwoLevelCacheManager(
+                redisCacheManager, Set.of("deals"), 100, Duration.ofMinutes(1), redisTemplate, new SimpleMeterRegistry(), Duration.ZERO);
+        anotherInstance.getCache("deals").evict(testDealId);
+
+        await()
+                .atMost(Duration.ofSeconds(5))
+                .pollInterval(Duration.ofMillis(100))
+                .untilAsserted(() -> assertThat(cacheManager.getCache("deals").get(testDealId)).isNull());
+
+        dealService.getDealById(testDealId);
+
+        verify(dealRepository, times(2)).findAggregateById(testDealId);
+    }
+
+}
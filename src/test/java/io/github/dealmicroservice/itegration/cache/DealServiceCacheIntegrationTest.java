@@ -1,13 +1,21 @@
 package io.github.dealmicroservice.itegration.cache;
 
+import io.github.dealmicroservice.exception.EntityNotFoundException;
+import io.github.dealmicroservice.model.dto.DealBatchSaveResultDTO;
 import io.github.dealmicroservice.model.dto.DealDTO;
 import io.github.dealmicroservice.model.dto.DealSaveDTO;
+import io.github.dealmicroservice.model.dto.DealSearchDTO;
+import io.github.dealmicroservice.model.dto.DealStatusDTO;
 import io.github.dealmicroservice.model.entity.Deal;
 import io.github.dealmicroservice.model.entity.DealStatus;
 import io.github.dealmicroservice.model.entity.DealType;
+import io.github.dealmicroservice.model.projection.DealSearchProjection;
 import io.github.dealmicroservice.repository.DealRepository;
+import io.github.dealmicroservice.repository.DealSearchQuery;
 import io.github.dealmicroservice.repository.DealStatusRepository;
 import io.github.dealmicroservice.repository.DealTypeRepository;
+import io.github.dealmicroservice.service.DealCacheService;
+import io.github.dealmicroservice.service.DealSearchCacheService;
 import io.github.dealmicroservice.service.DealService;
 import io.github.dealmicroservice.mapping.DealMapping;
 import org.junit.jupiter.api.BeforeEach;
@@ -26,12 +34,18 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -78,13 +92,18 @@ class DealServiceCacheIntegrationTest {
     @Autowired
     private CacheManager cacheManager;
 
+    @Autowired
+    private DealCacheService dealCacheService;
+
     private UUID testDealId;
     private Deal testDeal;
+    private DealSearchProjection testProjection;
     private DealDTO testDealDTO;
 
     @BeforeEach
     void setUp() {
         cacheManager.getCache("deals").clear();
+        cacheManager.getCache(DealSearchCacheService.CACHE_NAME).clear();
         Mockito.reset(dealRepository, dealStatusRepository, dealTypeRepository, dealMapping);
 
         testDealId = UUID.randomUUID();
@@ -98,6 +117,9 @@ class DealServiceCacheIntegrationTest {
                 .isActive(true)
                 .build();
 
+        testProjection = new DealSearchProjection(testDealId, "Test Deal", null, null, null, null, null,
+                "ACTIVE", null, "DRAFT", null, null, null, "[]");
+
         testDealDTO = DealDTO.builder()
                 .id(testDealId)
                 .description("Test Deal")
@@ -115,10 +137,8 @@ class DealServiceCacheIntegrationTest {
 
     @Test
     void doubleMethodCall_CallRepositoryOnceAndCacheResult() {
-        when(dealRepository.findActiveByDealIdWithBasicDetails(testDealId)).thenReturn(Optional.of(testDeal));
-        when(dealRepository.findByDealIdWithContractors(testDealId)).thenReturn(Optional.ofNullable(testDeal));
-        when(dealRepository.findByDealIdWithSums(testDealId)).thenReturn(Optional.ofNullable(testDeal));
-        when(dealMapping.mapToDTO(testDeal)).thenReturn(testDealDTO);
+        when(dealRepository.findAggregateById(testDealId)).thenReturn(Optional.of(testProjection));
+        when(dealMapping.mapToDTO(testProjection)).thenReturn(testDealDTO);
 
         DealDTO result1 = dealService.getDealById(testDealId);
         DealDTO result2 = dealService.getDealById(testDealId);
@@ -128,14 +148,40 @@ class DealServiceCacheIntegrationTest {
         assertThat(result1.getId()).isEqualTo(testDealId);
         assertThat(result2.getId()).isEqualTo(testDealId);
 
-        verify(dealRepository, times(1)).findActiveByDealIdWithBasicDetails(testDealId);
-        verify(dealMapping, times(1)).mapToDTO(testDeal);
+        verify(dealRepository, times(1)).findAggregateById(testDealId);
+        verify(dealMapping, times(1)).mapToDTO(testProjection);
 
         assertThat(cacheManager.getCache("deals").get(testDealId.toString())).isNotNull();
     }
 
     @Test
-    void clearingCacheTest_EvictCacheOnSaveDeal() {
+    void getDealsByIds_ReadCachedAndBackfillMisses() {
+        UUID otherDealId = UUID.randomUUID();
+        DealSearchProjection otherProjection = new DealSearchProjection(otherDealId, "Other Deal", null, null, null, null, null,
+                "ACTIVE", null, "DRAFT", null, null, null, "[]");
+        DealDTO otherDealDTO = DealDTO.builder()
+                .id(otherDealId)
+                .description("Other Deal")
+                .build();
+
+        when(dealRepository.findAggregateById(testDealId)).thenReturn(Optional.of(testProjection));
+        when(dealMapping.mapToDTO(testProjection)).thenReturn(testDealDTO);
+        when(dealRepository.findAggregatesByIds(List.of(otherDealId))).thenReturn(List.of(otherProjection));
+        when(dealMapping.mapToDTO(otherProjection)).thenReturn(otherDealDTO);
+
+        dealService.getDealById(testDealId);
+
+        List<DealDTO> result1 = dealService.getDealsByIds(List.of(otherDealId, testDealId, otherDealId));
+        List<DealDTO> result2 = dealService.getDealsByIds(List.of(testDealId, otherDealId));
+
+        assertThat(result1).extracting(DealDTO::getId).containsExactly(otherDealId, testDealId, otherDealId);
+        assertThat(result2).extracting(DealDTO::getId).containsExactly(testDealId, otherDealId);
+        verify(dealRepository, times(1)).findAggregatesByIds(any());
+        assertThat(cacheManager.getCache("deals").get(otherDealId.toString())).isNotNull();
+    }
+
+    @Test
+    void writeThroughOnSaveDeal_ReadAfterWriteServedFromCache() {
         DealSaveDTO saveDTO = DealSaveDTO.builder()
                 .id(testDealId)
                 .description("Updated Deal")
@@ -143,46 +189,221 @@ class DealServiceCacheIntegrationTest {
                 .build();
 
         DealType dealType = new DealType("ACTIVE", "Active Deal", true);
+        DealDTO updatedDealDTO = DealDTO.builder()
+                .id(testDealId)
+                .description("Updated Deal")
+                .build();
 
         when(dealRepository.findByIdAndIsActiveTrue(testDealId)).thenReturn(Optional.of(testDeal));
-        when(dealTypeRepository.findByIdAndIsActiveTrue("ACTIVE")).thenReturn(Optional.of(dealType));
+        when(dealTypeRepository.findAll()).thenReturn(List.of(dealType));
         when(dealRepository.save(any(Deal.class))).thenReturn(testDeal);
-        when(dealRepository.findActiveByDealIdWithBasicDetails(testDealId)).thenReturn(Optional.of(testDeal));
-        when(dealRepository.findByDealIdWithContractors(testDealId)).thenReturn(Optional.ofNullable(testDeal));
-        when(dealRepository.findByDealIdWithSums(testDealId)).thenReturn(Optional.ofNullable(testDeal));
-        when(dealMapping.mapToDTO(testDeal)).thenReturn(testDealDTO);
+        when(dealRepository.findAggregateById(testDealId)).thenReturn(Optional.of(testProjection));
+        when(dealMapping.mapToDTO(testProjection)).thenReturn(testDealDTO, updatedDealDTO);
 
         dealService.getDealById(testDealId);
-        verify(dealRepository, times(1)).findActiveByDealIdWithBasicDetails(testDealId);
+        verify(dealRepository, times(1)).findAggregateById(testDealId);
 
         dealService.saveDeal(saveDTO);
 
-        dealService.getDealById(testDealId);
+        DealDTO result = dealService.getDealById(testDealId);
 
-        verify(dealRepository, times(3)).findActiveByDealIdWithBasicDetails(testDealId);
-        assertThat(cacheManager.getCache("deals").get(testDealId.toString())).isNotNull();
+        assertThat(result.getDescription()).isEqualTo("Updated Deal");
+        verify(dealRepository, times(2)).findAggregateById(testDealId);
     }
 
     @Test
-    void clearingCacheTest_EvictCacheOnChangeStatus() {
+    void put_OlderVersionAfterNewer_KeepsNewerDeal() {
+        LocalDateTime modifyDate = LocalDateTime.now();
+        DealDTO newer = DealDTO.builder().id(testDealId).description("Newer Deal").build();
+        DealDTO older = DealDTO.builder().id(testDealId).description("Older Deal").build();
+
+        dealCacheService.put(newer, modifyDate);
+        dealCacheService.put(older, modifyDate.minusSeconds(1));
+
+        assertThat(cacheManager.getCache("deals").get(testDealId.toString()).get())
+                .extracting("description")
+                .isEqualTo("Newer Deal");
+        assertThat(dealCacheService.getAll(List.of(testDealId)).get(testDealId).getDescription()).isEqualTo("Newer Deal");
+    }
+
+    @Test
+    void saveDeal_DealTypeValidatedFromReferenceDataSnapshot() {
+        DealSaveDTO saveDTO = DealSaveDTO.builder()
+                .id(testDealId)
+                .description("Updated Deal")
+                .typeId("ACTIVE")
+                .build();
+
+        when(dealRepository.findByIdAndIsActiveTrue(testDealId)).thenReturn(Optional.of(testDeal));
+        when(dealTypeRepository.findAll()).thenReturn(List.of(new DealType("ACTIVE", "Active Deal", true)));
+        when(dealRepository.save(any(Deal.class))).thenReturn(testDeal);
+        when(dealRepository.findAggregateById(testDealId)).thenReturn(Optional.of(testProjection));
+        when(dealMapping.mapToDTO(testProjection)).thenReturn(testDealDTO);
+
+        dealService.saveDeal(saveDTO);
+        dealService.saveDeal(saveDTO);
+        dealService.saveDeal(saveDTO);
+
+        verify(dealTypeRepository, atMost(1)).findAll();
+        verify(dealTypeRepository, never()).findByIdAndIsActiveTrue(any());
+    }
+
+    @Test
+    void writeThroughOnChangeStatus_ReadAfterWriteServedFromCache() {
         DealStatus newStatus = new DealStatus("ACTIVE", "Active", true);
+        DealDTO changedDealDTO = DealDTO.builder()
+                .id(testDealId)
+                .description("Test Deal")
+                .status(DealStatusDTO.builder().id("ACTIVE").name("Active").build())
+                .build();
 
         when(dealRepository.findByIdAndIsActiveTrue(testDealId)).thenReturn(Optional.of(testDeal));
-        when(dealStatusRepository.findByIdAndIsActiveTrue("ACTIVE")).thenReturn(Optional.of(newStatus));
+        when(dealStatusRepository.findAll()).thenReturn(List.of(newStatus));
         when(dealRepository.save(any(Deal.class))).thenReturn(testDeal);
-        when(dealRepository.findActiveByDealIdWithBasicDetails(testDealId)).thenReturn(Optional.of(testDeal));
-        when(dealRepository.findByDealIdWithContractors(testDealId)).thenReturn(Optional.ofNullable(testDeal));
-        when(dealRepository.findByDealIdWithSums(testDealId)).thenReturn(Optional.ofNullable(testDeal));
-        when(dealMapping.mapToDTO(testDeal)).thenReturn(testDealDTO);
+        when(dealRepository.findAggregateById(testDealId)).thenReturn(Optional.of(testProjection));
+        when(dealMapping.mapToDTO(testProjection)).thenReturn(testDealDTO, changedDealDTO);
 
         dealService.getDealById(testDealId);
-        verify(dealRepository, times(1)).findActiveByDealIdWithBasicDetails(testDealId);
+        verify(dealRepository, times(1)).findAggregateById(testDealId);
 
         dealService.changeStatus(testDealId, "ACTIVE");
 
+        DealDTO result = dealService.getDealById(testDealId);
+
+        assertThat(result.getStatus().getId()).isEqualTo("ACTIVE");
+        verify(dealRepository, times(2)).findAggregateById(testDealId);
+    }
+
+    @Test
+    void failedChangeStatus_KeepsCachedDeal() {
+        when(dealRepository.findByIdAndIsActiveTrue(testDealId)).thenReturn(Optional.of(testDeal));
+        when(dealRepository.findAggregateById(testDealId)).thenReturn(Optional.of(testProjection));
+        when(dealMapping.mapToDTO(testProjection)).thenReturn(testDealDTO);
+
         dealService.getDealById(testDealId);
 
-        verify(dealRepository, times(3)).findActiveByDealIdWithBasicDetails(testDealId);
-        assertThat(cacheManager.getCache("deals").get(testDealId.toString())).isNotNull();
+        assertThatThrownBy(() -> dealService.changeStatus(testDealId, "UNKNOWN"))
+                .isInstanceOf(EntityNotFoundException.class);
+
+        DealDTO result = dealService.getDealById(testDealId);
+
+        assertThat(result.getId()).isEqualTo(testDealId);
+        verify(dealRepository, times(1)).findAggregateById(testDealId);
     }
-}
\ No newline at end of file
+
+    @Test
+    void saveDeals_EvictsUpdatedDealsAndReportsFailures() {
+        UUID missingDealId = UUID.randomUUID();
+        List<DealSaveDTO> requests = List.of(
+                DealSaveDTO.builder().id(testDealId).description("Updated Deal").typeId("ACTIVE").build(),
+                DealSaveDTO.builder().id(missingDealId).description("Missing Deal").typeId("ACTIVE").build(),
+                DealSaveDTO.builder().description("New Deal").typeId("UNKNOWN").build());
+
+        when(dealRepository.findAllByIdInAndIsActiveTrue(any())).thenReturn(List.of(testDeal));
+        when(dealTypeRepository.findAll()).thenReturn(List.of(new DealType("ACTIVE", "Active Deal", true)));
+        when(dealRepository.findAggregateById(testDealId)).thenReturn(Optional.of(testProjection));
+        when(dealMapping.mapToDTO(testProjection)).thenReturn(testDealDTO);
+
+        dealService.getDealById(testDealId);
+
+        List<DealBatchSaveResultDTO> results = dealService.saveDeals(requests);
+
+        assertThat(results).extracting(DealBatchSaveResultDTO::getStatus).containsExactly(
+                DealBatchSaveResultDTO.Status.UPDATED, DealBatchSaveResultDTO.Status.FAILED, DealBatchSaveResultDTO.Status.FAILED);
+        assertThat(results.get(1).getError()).contains(missingDealId.toString());
+        assertThat(testDeal.getDescription()).isEqualTo("Updated Deal");
+        verify(dealRepository, times(1)).findAllByIdInAndIsActiveTrue(any());
+        verify(dealRepository, never()).findByIdAndIsActiveTrue(any());
+        verify(dealTypeRepository, never()).findByIdAndIsActiveTrue(any());
+
+        dealService.getDealById(testDealId);
+
+        verify(dealRepository, times(2)).findAggregateById(testDealId);
+    }
+
+    @Test
+    void searchDeals_CacheNormalizedFilterUntilDealChanged() {
+        DealStatus newStatus = new DealStatus("ACTIVE", "Active", true);
+
+        DealSearchDTO request = new DealSearchDTO();
+        request.setStatus(List.of("DRAFT", "ACTIVE"));
+        request.setBorrowerSearch("ООО Ромашка");
+
+        DealSearchDTO equivalentRequest = new DealSearchDTO();
+        equivalentRequest.setStatus(List.of("ACTIVE", "DRAFT", "DRAFT"));
+        equivalentRequest.setBorrowerSearch("  ооо ромашка ");
+
+        when(dealRepository.findPage(any(DealSearchQuery.class), anyLong(), anyInt())).thenReturn(List.of(testDeal));
+        when(dealRepository.findByIdAndIsActiveTrue(testDealId)).thenReturn(Optional.of(testDeal));
+        when(dealStatusRepository.findAll()).thenReturn(List.of(newStatus));
+        when(dealRepository.save(any(Deal.class))).thenReturn(testDeal);
+        when(dealRepository.findAggregateById(testDealId)).thenReturn(Optional.of(testProjection));
+        when(dealMapping.mapToDTO(testProjection)).thenReturn(testDealDTO);
+        when(dealMapping.mapToDTO(eq(testDeal), anyMap())).thenReturn(testDealDTO);
+
+        var result1 = dealService.searchDeals(request);
+        var result2 = dealService.searchDeals(equivalentRequest);
+
+        assertThat(result1.getContent()).extracting(DealDTO::getId).containsExactly(testDealId);
+        assertThat(result2.getContent()).extracting(DealDTO::getId).containsExactly(testDealId);
+        assertThat(result2.getPage().getTotalElements()).isEqualTo(1);
+        verify(dealRepository, times(1)).findPage(any(DealSearchQuery.class), anyLong(), anyInt());
+
+        dealService.changeStatus(testDealId, "ACTIVE");
+
+        dealService.searchDeals(request);
+
+        verify(dealRepository, times(2)).findPage(any(DealSearchQuery.class), anyLong(), anyInt());
+    }
+
+    @Test
+    void searchDeals_CachedCountReusedAcrossPages() {
+        cacheManager.getCache(DealSearchCacheService.COUNT_CACHE_NAME).clear();
+
+        when(dealRepository.findPage(any(DealSearchQuery.class), anyLong(), anyInt())).thenReturn(threeDeals());
+        when(dealRepository.count(any(DealSearchQuery.class))).thenReturn(25L);
+        when(dealMapping.mapToDTO(any(Deal.class), anyMap())).thenReturn(testDealDTO);
+
+        DealSearchDTO firstPage = new DealSearchDTO();
+        firstPage.setSize(2);
+        firstPage.setCountMode("cached");
+
+        DealSearchDTO secondPage = new DealSearchDTO();
+        secondPage.setSize(2);
+        secondPage.setPage(1);
+        secondPage.setCountMode("cached");
+
+        var result1 = dealService.searchDeals(firstPage);
+        var result2 = dealService.searchDeals(secondPage);
+
+        assertThat(result1.getPage().getTotalElements()).isEqualTo(25);
+        assertThat(result2.getPage().getTotalElements()).isEqualTo(25);
+        verify(dealRepository, times(1)).count(any(DealSearchQuery.class));
+    }
+
+    @Test
+    void searchDeals_CountModeNoneReturnsPageWithoutTotal() {
+        when(dealRepository.findPage(any(DealSearchQuery.class), anyLong(), anyInt())).thenReturn(threeDeals());
+        when(dealMapping.mapToDTO(any(Deal.class), anyMap())).thenReturn(testDealDTO);
+
+        DealSearchDTO request = new DealSearchDTO();
+        request.setSize(2);
+        request.setCountMode("none");
+
+        var result = dealService.searchDeals(request);
+
+        assertThat(result.getPage().getTotalElements()).isNull();
+        assertThat(result.getContent()).hasSize(2);
+        assertThat(result.getHasNext()).isTrue();
+        verify(dealRepository, never()).count(any(DealSearchQuery.class));
+    }
+
+    private List<Deal> threeDeals() {
+        return List.of(
+                Deal.builder().id(UUID.randomUUID()).typeId("ACTIVE").statusId("DRAFT").isActive(true).build(),
+                Deal.builder().id(UUID.randomUUID()).typeId("ACTIVE").statusId("DRAFT").isActive(true).build(),
+                Deal.builder().id(UUID.randomUUID()).typeId("ACTIVE").statusId("DRAFT").isActive(true).build()
+        );
+    }
+
+}
@@ -0,0 +1,87 @@
+package io.github.dealmicroservice.service;
+
+import io.github.dealmicroservice.config.CacheValueSerializer;
+import io.github.dealmicroservice.model.dto.DealDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Пакетное чтение кэша сделок: нечитаемое значение одной сделки не ломает чтение остальных
+ */
+@ExtendWith(MockitoExtension.class)
+class DealCacheServiceTest {
+
+    private final CacheValueSerializer serializer = new CacheValueSerializer(CacheValueSerializer.CODEC_JSON, 0);
+
+    @Mock
+    private RedisCacheManager redisCacheManager;
+
+    @Mock
+    private RedisCache redisCache;
+
+    @Mock
+    private CacheManager dealsCacheManager;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private DealCacheService dealCacheService;
+
+    @BeforeEach
+    void setUp() {
+        when(redisCacheManager.getCache(DealCacheService.CACHE_NAME)).thenReturn(redisCache);
+        when(redisCache.getCacheConfiguration()).thenReturn(RedisCacheConfiguration.defaultCacheConfig()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer)));
+        dealCacheService = new DealCacheService(redisCacheManager, dealsCacheManager, redisTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getAll_UnreadableValue_TreatedAsMissAndEvicted() {
+        UUID cachedId = UUID.randomUUID();
+        UUID corruptId = UUID.randomUUID();
+        UUID missingId = UUID.randomUUID();
+        DealDTO cached = DealDTO.builder().id(cachedId).build();
+        when(redisTemplate.execute(any(RedisCallback.class))).thenReturn(Arrays.asList(
+                serializer.serialize(cached), "{not a deal".getBytes(StandardCharsets.UTF_8), null));
+
+        Map<UUID, DealDTO> deals = dealCacheService.getAll(List.of(cachedId, corruptId, missingId));
+
+        assertThat(deals).containsOnlyKeys(cachedId);
+        verify(redisTemplate).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getAll_AllValuesReadable_NothingEvicted() {
+        UUID cachedId = UUID.randomUUID();
+        when(redisTemplate.execute(any(RedisCallback.class))).thenReturn(List.of(
+                serializer.serialize(DealDTO.builder().id(cachedId).build())));
+
+        assertThat(dealCacheService.getAll(List.of(cachedId))).containsOnlyKeys(cachedId);
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+    }
+
+}
@@ -0,0 +1,101 @@
+package io.github.dealmicroservice.service;
+
+import io.github.dealmicroservice.model.dto.DealDTO;
+import io.github.dealmicroservice.model.dto.DealFacetsDTO;
+import io.github.dealmicroservice.model.dto.DealSearchDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Поиск не должен зависеть от доступности Redis: при ошибках кэша результат загружается из БД
+ */
+@ExtendWith(MockitoExtension.class)
+class DealSearchCacheServiceTest {
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private Cache cache;
+
+    @Mock
+    private ReadYourWritesService readYourWritesService;
+
+    @InjectMocks
+    private DealSearchCacheService dealSearchCacheService;
+
+    private final DealSearchDTO request = new DealSearchDTO();
+    private final Pageable pageable = PageRequest.of(0, 10);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dealSearchCacheService, "enabled", true);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void getOrLoad_RedisUnavailable_LoadsWithoutCache() {
+        Slice<DealDTO> loaded = new PageImpl<>(List.of(DealDTO.builder().id(UUID.randomUUID()).build()), pageable, 1);
+        when(valueOperations.get(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+
+        Slice<DealDTO> result = dealSearchCacheService.getOrLoad(request, pageable, () -> loaded);
+
+        assertThat(result).isSameAs(loaded);
+        verify(cacheManager, never()).getCache(anyString());
+    }
+
+    @Test
+    void getOrLoadFacets_CacheReadFails_LoadsAndSkipsFailure() {
+        DealFacetsDTO loaded = DealFacetsDTO.builder().total(3L).build();
+        when(valueOperations.get(anyString())).thenReturn("7");
+        when(cacheManager.getCache(DealSearchCacheService.FACETS_CACHE_NAME)).thenReturn(cache);
+        when(cache.get(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+        when(readYourWritesService.readFromPrimary(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+
+        DealFacetsDTO result = dealSearchCacheService.getOrLoadFacets(request, () -> loaded);
+
+        assertThat(result).isSameAs(loaded);
+        verify(cache).put(anyString(), any());
+        verify(readYourWritesService).readFromPrimary(any());
+    }
+
+    @Test
+    void invalidate_RedisUnavailable_DoesNotThrow() {
+        when(valueOperations.increment(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertThatCode(() -> dealSearchCacheService.invalidate()).doesNotThrowAnyException();
+    }
+
+}
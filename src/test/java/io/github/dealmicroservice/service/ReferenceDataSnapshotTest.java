@@ -0,0 +1,113 @@
+package io.github.dealmicroservice.service;
+
+import io.github.dealmicroservice.model.entity.DealType;
+import io.github.dealmicroservice.repository.ContractorRoleRepository;
+import io.github.dealmicroservice.repository.CurrencyRepository;
+import io.github.dealmicroservice.repository.DealStatusRepository;
+import io.github.dealmicroservice.repository.DealTypeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Снимок справочников: ограничение перечитывания по неизвестным идентификаторам,
+ * чтение с основной БД и обновление по сообщениям других экземпляров
+ */
+@ExtendWith(MockitoExtension.class)
+class ReferenceDataSnapshotTest {
+
+    @Mock
+    private DealTypeRepository dealTypeRepository;
+
+    @Mock
+    private DealStatusRepository dealStatusRepository;
+
+    @Mock
+    private ContractorRoleRepository contractorRoleRepository;
+
+    @Mock
+    private CurrencyRepository currencyRepository;
+
+    @Mock
+    private ReadYourWritesService readYourWritesService;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @InjectMocks
+    private ReferenceDataSnapshot referenceDataSnapshot;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(referenceDataSnapshot, "missReloadInterval", Duration.ofHours(1));
+        when(readYourWritesService.readFromPrimary(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        when(dealTypeRepository.findAll()).thenReturn(List.of(new DealType("CREDIT", "Кредитная сделка", true)));
+    }
+
+    @Test
+    void findActiveDealType_UnknownId_ReloadedOncePerInterval() {
+        referenceDataSnapshot.load();
+
+        assertThat(referenceDataSnapshot.findActiveDealType("UNKNOWN")).isEmpty();
+        assertThat(referenceDataSnapshot.findActiveDealType("UNKNOWN")).isEmpty();
+        assertThat(referenceDataSnapshot.findActiveDealType("UNKNOWN")).isEmpty();
+        assertThat(referenceDataSnapshot.findActiveDealType("CREDIT")).isPresent();
+
+        verify(dealTypeRepository, times(2)).findAll();
+        verify(readYourWritesService, times(5)).readFromPrimary(any());
+    }
+
+    @Test
+    void onMessage_AnotherInstance_ReloadsSection() {
+        referenceDataSnapshot.load();
+        when(dealTypeRepository.findAll()).thenReturn(List.of(new DealType("OTHER", "Иная сделка", true)));
+
+        referenceDataSnapshot.onMessage(message("another-instance\nDEAL_TYPES"), null);
+
+        assertThat(referenceDataSnapshot.findActiveDealType("OTHER")).isPresent();
+        verify(dealTypeRepository, times(2)).findAll();
+    }
+
+    @Test
+    void onMessage_OwnInstance_Ignored() {
+        referenceDataSnapshot.load();
+        String instanceId = (String) ReflectionTestUtils.getField(referenceDataSnapshot, "instanceId");
+
+        referenceDataSnapshot.onMessage(message(instanceId + "\nDEAL_TYPES"), null);
+
+        verify(dealTypeRepository, times(1)).findAll();
+    }
+
+    @Test
+    void refreshDealTypes_ReloadsAndNotifiesOtherInstances() {
+        referenceDataSnapshot.load();
+
+        referenceDataSnapshot.refreshDealTypes();
+
+        verify(dealTypeRepository, times(2)).findAll();
+        verify(redisTemplate).convertAndSend(eq(ReferenceDataSnapshot.REFRESH_CHANNEL), any(String.class));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(ReferenceDataSnapshot.REFRESH_CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+
+}